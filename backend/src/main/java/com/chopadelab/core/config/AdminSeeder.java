@@ -4,6 +4,7 @@ import com.chopadelab.core.entity.Role;
 import com.chopadelab.core.entity.User;
 import com.chopadelab.core.repository.RoleRepository;
 import com.chopadelab.core.repository.UserRepository;
+import com.chopadelab.core.service.UserCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,6 +19,7 @@ public class AdminSeeder implements CommandLineRunner {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
 
     @org.springframework.beans.factory.annotation.Value("${app.admin.password}")
     private String adminPassword;
@@ -51,6 +53,7 @@ public class AdminSeeder implements CommandLineRunner {
         admin.setEnabled(true);
 
         userRepository.save(admin);
+        userCache.invalidate(username);
         System.out.println("Admin user managed successfully. Password synced with Environment Variable.");
     }
 }
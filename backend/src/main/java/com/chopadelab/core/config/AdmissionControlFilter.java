@@ -0,0 +1,169 @@
+package com.chopadelab.core.config;
+
+import com.chopadelab.core.dto.ConcurrencyStatsDto;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps concurrent requests per route class so one kind of load cannot starve the others:
+ * a login storm queues on its own CPU-sized gate instead of taking every JDBC connection,
+ * and reads keep flowing while writes back up. Requests that wait too long, or find the
+ * queue full, get 503 with Retry-After. Cheap in-memory routes are not gated.
+ */
+@Component
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    public enum RouteClass {
+        AUTH,
+        WRITE,
+        READ
+    }
+
+    private final ConcurrencyProperties properties;
+    private final Map<RouteClass, Gate> gates = new EnumMap<>(RouteClass.class);
+
+    public AdmissionControlFilter(ConcurrencyProperties properties, DataSource dataSource) {
+        this.properties = properties;
+        int pool = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        gates.put(RouteClass.AUTH, new Gate(orDefault(properties.getAuthPermits(), cpus)));
+        gates.put(RouteClass.WRITE, new Gate(orDefault(properties.getWritePermits(), Math.max(1, pool / 2))));
+        gates.put(RouteClass.READ, new Gate(orDefault(properties.getReadPermits(), pool)));
+        log.info("Admission limits: auth={}, write={}, read={} (pool={}, cpus={})",
+                gates.get(RouteClass.AUTH).limit, gates.get(RouteClass.WRITE).limit,
+                gates.get(RouteClass.READ).limit, pool, cpus);
+    }
+
+    private static int orDefault(int configured, int derived) {
+        return configured > 0 ? configured : derived;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled() || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Gate gate = gates.get(classify(request));
+        if (!gate.acquire(properties.getMaxQueue(), properties.getMaxWaitMs())) {
+            reject(response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            gate.release();
+        }
+    }
+
+    public List<ConcurrencyStatsDto> stats() {
+        List<ConcurrencyStatsDto> stats = new ArrayList<>();
+        gates.forEach((routeClass, gate) -> stats.add(gate.stats(routeClass)));
+        return stats;
+    }
+
+    // Null means "not gated"
+    static RouteClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (!path.startsWith("/api/") || path.equals("/api/health") || "OPTIONS".equals(method)) {
+            return null;
+        }
+        if (path.equals("/api/auth/login") || path.equals("/api/auth/register")) {
+            return RouteClass.AUTH;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            // Catalog and its search are served from memory and never touch the pool; report
+            // downloads do one short lookup and then stream for as long as the client takes
+            if (path.equals("/api/tests") || path.equals("/api/tests/search")
+                    || (path.startsWith("/api/appointments/") && path.endsWith("/report"))) {
+                return null;
+            }
+            return RouteClass.READ;
+        }
+        return RouteClass.WRITE;
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"status\":503,\"error\":\"Service Unavailable\","
+                + "\"message\":\"Server is busy, please retry shortly\"}");
+    }
+
+    private static final class Gate {
+        private final int limit;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Gate(int limit) {
+            this.limit = limit;
+            this.permits = new Semaphore(limit, true);
+        }
+
+        boolean acquire(int maxQueue, long maxWaitMs) {
+            if (permits.tryAcquire()) {
+                admitted.increment();
+                return true;
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                rejected.increment();
+                return false;
+            }
+            try {
+                if (permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                    admitted.increment();
+                    return true;
+                }
+                rejected.increment();
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        ConcurrencyStatsDto stats(RouteClass routeClass) {
+            return new ConcurrencyStatsDto(routeClass.name(), limit, limit - permits.availablePermits(),
+                    waiting.get(), admitted.sum(), rejected.sum());
+        }
+    }
+}
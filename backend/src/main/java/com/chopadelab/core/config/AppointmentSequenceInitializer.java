@@ -0,0 +1,34 @@
+package com.chopadelab.core.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appointment ids moved from IDENTITY to the pooled appointments_seq. Hibernate creates the
+ * sequence at 1, so move it past the ids already issued by the identity column.
+ * Idempotent: the sequence is never moved backwards.
+ */
+@Component
+@Order(0)
+@Slf4j
+@RequiredArgsConstructor
+public class AppointmentSequenceInitializer implements CommandLineRunner {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        Long value = jdbcTemplate.queryForObject("""
+                select setval('appointments_seq', greatest(
+                        (select coalesce(max(id), 0) from appointments) + ?,
+                        (select last_value from appointments_seq)))
+                """, Long.class, ALLOCATION_SIZE);
+        log.info("appointments_seq aligned at {}", value);
+    }
+}
@@ -0,0 +1,32 @@
+package com.chopadelab.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission limits per route class (see AdmissionControlFilter). A permit count of 0 means
+ * "derive it": CPU count for password hashing, the JDBC pool size for database work.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.concurrency")
+public class ConcurrencyProperties {
+
+    private boolean enabled = true;
+
+    // Login/register: BCrypt is CPU bound, so more in flight than cores only adds latency
+    private int authPermits = 0;
+
+    // Writes hold a connection for the whole transaction; default is half the pool
+    private int writePermits = 0;
+
+    // Reads (open-in-view keeps the connection for the request); default is the pool size
+    private int readPermits = 0;
+
+    // How long a request may queue for a permit before it is turned away with 503
+    private long maxWaitMs = 5000;
+
+    // Requests allowed to queue per class before new ones are rejected immediately
+    private int maxQueue = 200;
+}
@@ -0,0 +1,38 @@
+package com.chopadelab.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pricing rules applied on top of catalog prices (see PricingEngine).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.pricing")
+public class PricingProperties {
+
+    private BigDecimal homeVisitFee = new BigDecimal("100.00");
+
+    // Percentage off the tests subtotal (home-visit fee excluded)
+    private BigDecimal discountPercent = BigDecimal.ZERO;
+
+    // Category name -> percentage off individually priced tests of that category
+    private Map<String, BigDecimal> categoryDiscounts = new HashMap<>();
+
+    private List<Bundle> bundles = new ArrayList<>();
+
+    @Data
+    public static class Bundle {
+        private String name;
+        // Test names as stored in lab_tests.testName
+        private List<String> tests = new ArrayList<>();
+        private BigDecimal price;
+    }
+}
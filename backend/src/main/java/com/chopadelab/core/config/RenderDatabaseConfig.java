@@ -29,7 +29,9 @@ public class RenderDatabaseConfig {
 
         String username = dbUri.getUserInfo().split(":")[0];
         String password = dbUri.getUserInfo().split(":")[1];
-        String dbUrl = "jdbc:postgresql://" + dbUri.getHost() + ':' + dbUri.getPort() + dbUri.getPath();
+        // reWriteBatchedInserts turns JDBC insert batches into multi-row INSERTs
+        String dbUrl = "jdbc:postgresql://" + dbUri.getHost() + ':' + dbUri.getPort() + dbUri.getPath()
+                + "?reWriteBatchedInserts=true";
 
         log.info("Configuring DataSource with URL: {}", dbUrl);
         log.info("Database User: {}", username);
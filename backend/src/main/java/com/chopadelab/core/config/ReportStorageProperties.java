@@ -0,0 +1,25 @@
+package com.chopadelab.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Where uploaded lab reports are kept (see ReportStorageService).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.reports")
+public class ReportStorageProperties {
+
+    // Content-addressed blobs live under <dir>/<first 2 hex chars>/<sha-256>
+    private String dir = "./data/reports";
+
+    private DataSize maxSize = DataSize.ofMegabytes(25);
+
+    // Background sweep deleting blobs no report points at any more, and stale upload temp files
+    private long sweepMs = 3_600_000;
+    // Files younger than this are never swept
+    private long sweepGraceMs = 3_600_000;
+}
@@ -0,0 +1,31 @@
+package com.chopadelab.core.config;
+
+import com.chopadelab.core.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appointments booked before per-line prices were kept get lines at the current catalog
+ * price, and the rollup tables, which start empty on the first deploy that has them, are
+ * filled from the appointments already in the database. Later starts find nothing to do.
+ */
+@Component
+@Order(1)
+@Slf4j
+@RequiredArgsConstructor
+public class RollupBackfillInitializer implements CommandLineRunner {
+
+    private final RollupService rollupService;
+
+    @Override
+    public void run(String... args) {
+        rollupService.backfillLines();
+        if (rollupService.isEmpty()) {
+            log.info("Rollup tables are empty, rebuilding from appointments");
+            rollupService.rebuild();
+        }
+    }
+}
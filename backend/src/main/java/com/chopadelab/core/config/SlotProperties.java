@@ -0,0 +1,31 @@
+package com.chopadelab.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+
+/**
+ * Collection slot layout and capacity (see SlotCapacityService).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.slots")
+public class SlotProperties {
+
+    private int slotMinutes = 30;
+
+    // Bookings per slot that staff can handle, separately for the lab counter and home visits
+    private int walkInCapacity = 10;
+    private int homeVisitCapacity = 4;
+
+    // Window listed by the availability endpoint
+    private LocalTime openTime = LocalTime.of(7, 0);
+    private LocalTime closeTime = LocalTime.of(20, 0);
+
+    private int maxRangeDays = 31;
+
+    // How often in-memory counters of past slots are dropped
+    private long evictIntervalMs = 10 * 60 * 1000;
+}
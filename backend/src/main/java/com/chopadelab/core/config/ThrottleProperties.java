@@ -0,0 +1,39 @@
+package com.chopadelab.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token-bucket limits for the public auth endpoints (see LoginThrottle). Each bucket holds
+ * {@code capacity} attempts and refills at {@code refillPerMinute}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.throttle")
+public class ThrottleProperties {
+
+    private boolean enabled = true;
+
+    // Login attempts per client IP
+    private int ipCapacity = 20;
+    private int ipRefillPerMinute = 20;
+
+    // Login attempts per username, whatever IPs they come from
+    private int usernameCapacity = 10;
+    private int usernameRefillPerMinute = 5;
+
+    // Registrations per client IP
+    private int registerCapacity = 5;
+    private int registerRefillPerMinute = 2;
+
+    // Proxies in front of the app that append to X-Forwarded-For; 0 = use the socket address.
+    // Only set this behind a proxy that overwrites the header, or clients can pick their own key.
+    private int trustedProxyHops = 0;
+
+    // Upper bound on tracked keys; when every tracked bucket is still in use, new keys get 429
+    private int maxKeys = 100_000;
+    // Background sweep dropping buckets that have refilled or been idle this long
+    private long sweepMs = 10_000;
+    private long idleEvictMs = 600_000;
+}
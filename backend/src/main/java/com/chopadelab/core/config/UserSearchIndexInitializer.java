@@ -0,0 +1,42 @@
+package com.chopadelab.core.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trigram indexes behind UserRepository.searchPage, so substring lookups on username, full name
+ * and phone digits use an index instead of scanning the user table. ddl-auto cannot express
+ * expression or GIN indexes, hence plain DDL here. Idempotent. If pg_trgm cannot be enabled
+ * (no privilege), search keeps working, just without the indexes.
+ */
+@Component
+@Order(2)
+@Slf4j
+@RequiredArgsConstructor
+public class UserSearchIndexInitializer implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            jdbcTemplate.execute("""
+                    create index if not exists idx_user_username_trgm
+                    on "user" using gin (lower(username) gin_trgm_ops)""");
+            jdbcTemplate.execute("""
+                    create index if not exists idx_user_full_name_trgm
+                    on "user" using gin (lower(full_name) gin_trgm_ops)""");
+            jdbcTemplate.execute("""
+                    create index if not exists idx_user_phone_digits_trgm
+                    on "user" using gin (regexp_replace(phone_number, '[^0-9]', '', 'g') gin_trgm_ops)""");
+        } catch (DataAccessException e) {
+            log.warn("User search indexes not created, search will scan the user table: {}", e.getMessage());
+        }
+    }
+}
@@ -7,10 +7,50 @@ import org.springframework.web.bind.annotation.*;
 @lombok.RequiredArgsConstructor
 public class AdminController {
 
-    private final com.chopadelab.core.repository.UserRepository userRepository;
+    private final com.chopadelab.core.service.UserSearchService userSearchService;
+    private final com.chopadelab.core.service.UserCache userCache;
+    private final com.chopadelab.core.config.AdmissionControlFilter admissionControlFilter;
+    private final com.chopadelab.core.security.BoundedPasswordEncoder passwordEncoder;
+    private final com.chopadelab.core.security.LoginThrottle loginThrottle;
 
+    // Keyset-paginated search over username, full name and phone number (q optional)
     @GetMapping("/users")
-    public org.springframework.http.ResponseEntity<java.util.List<com.chopadelab.core.entity.User>> getAllUsers() {
-        return org.springframework.http.ResponseEntity.ok(userRepository.findAll());
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public org.springframework.http.ResponseEntity<com.chopadelab.core.dto.UserPageDto> searchUsers(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "25") int limit) {
+        return org.springframework.http.ResponseEntity.ok(userSearchService.search(q, cursor, limit));
+    }
+
+    // Role name -> number of users, for the dashboard totals
+    @GetMapping("/users/count")
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public org.springframework.http.ResponseEntity<java.util.Map<String, Long>> countUsers() {
+        return org.springframework.http.ResponseEntity.ok(userSearchService.countByRole());
+    }
+
+    @GetMapping("/cache/users")
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public org.springframework.http.ResponseEntity<com.chopadelab.core.dto.CacheStatsDto> getUserCacheStats() {
+        return org.springframework.http.ResponseEntity.ok(userCache.stats());
+    }
+
+    @GetMapping("/concurrency")
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public org.springframework.http.ResponseEntity<java.util.List<com.chopadelab.core.dto.ConcurrencyStatsDto>> getConcurrencyStats() {
+        return org.springframework.http.ResponseEntity.ok(admissionControlFilter.stats());
+    }
+
+    @GetMapping("/password-hashing")
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public org.springframework.http.ResponseEntity<com.chopadelab.core.dto.PasswordHashingStatsDto> getPasswordHashingStats() {
+        return org.springframework.http.ResponseEntity.ok(passwordEncoder.stats());
+    }
+
+    @GetMapping("/throttle")
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN')")
+    public org.springframework.http.ResponseEntity<com.chopadelab.core.dto.ThrottleStatsDto> getThrottleStats() {
+        return org.springframework.http.ResponseEntity.ok(loginThrottle.stats());
     }
 }
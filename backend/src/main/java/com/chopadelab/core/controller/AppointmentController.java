@@ -1,18 +1,43 @@
 package com.chopadelab.core.controller;
 
+import com.chopadelab.core.dto.AppointmentDto;
+import com.chopadelab.core.dto.AppointmentPageDto;
 import com.chopadelab.core.dto.BookAppointmentRequest;
+import com.chopadelab.core.dto.BulkStatusUpdateRequest;
+import com.chopadelab.core.dto.BulkStatusUpdateResultDto;
+import com.chopadelab.core.dto.StreamTicketDto;
 import com.chopadelab.core.dto.UpdateAppointmentStatusRequest;
-import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentStatus;
 import com.chopadelab.core.entity.User;
-import com.chopadelab.core.repository.UserRepository;
+import com.chopadelab.core.security.CurrentUser;
+import com.chopadelab.core.security.StreamTicketStore;
+import com.chopadelab.core.service.AppointmentEventBroadcaster;
+import com.chopadelab.core.service.AppointmentExportService;
 import com.chopadelab.core.service.AppointmentService;
+import com.chopadelab.core.service.AppointmentStatusCounters;
+import com.chopadelab.core.service.IdempotencyStore;
+import com.chopadelab.core.service.ReportStorageService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -20,39 +45,146 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
-    private final UserRepository userRepository;
+    private final AppointmentStatusCounters statusCounters;
+    private final AppointmentEventBroadcaster eventBroadcaster;
+    private final StreamTicketStore streamTicketStore;
+    private final AppointmentExportService exportService;
+    private final IdempotencyStore idempotencyStore;
+    private final ReportStorageService reportStorageService;
 
     // User: Book Appointment
     @PostMapping("/appointments/book")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Appointment> bookAppointment(@RequestBody BookAppointmentRequest request,
-            Authentication authentication) {
-        User patient = userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(appointmentService.bookAppointment(request, patient));
+    public ResponseEntity<AppointmentDto> bookAppointment(@RequestBody BookAppointmentRequest request,
+            @CurrentUser(lightweight = true) User patient,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(appointmentService.bookAppointment(request, patient));
+        }
+        // Retries and double-taps with the same key get the first booking back
+        IdempotencyStore.Outcome<AppointmentDto> outcome = idempotencyStore.execute(
+                "book:" + patient.getId(), idempotencyKey, request,
+                () -> appointmentService.bookAppointment(request, patient));
+        return ResponseEntity.ok()
+                .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                .body(outcome.value());
+    }
+
+    // Admin: Book many appointments at once (e.g. corporate health camps)
+    @PostMapping("/appointments/book/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AppointmentDto>> bookAppointments(@RequestBody List<BookAppointmentRequest> requests,
+            @CurrentUser(lightweight = true) User patient) {
+        return ResponseEntity.ok(appointmentService.bookAppointments(requests, patient));
     }
 
     // User: Get My History
     @GetMapping("/appointments/my-history")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<Appointment>> getMyHistory(Authentication authentication) {
-        User patient = userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<List<AppointmentDto>> getMyHistory(@CurrentUser(lightweight = true) User patient) {
         return ResponseEntity.ok(appointmentService.getUserHistory(patient));
     }
 
-    // Admin: Get ALL Appointments
+    // Admin: Keyset-paginated appointments (newest first), optionally filtered
     @GetMapping("/admin/appointments")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Appointment>> getAllAppointments() {
-        return ResponseEntity.ok(appointmentService.getAllAppointments());
+    public ResponseEntity<AppointmentPageDto> getAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean homeVisit) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsPage(cursor, limit, status, from, to, homeVisit));
+    }
+
+    // Admin: Full export streamed from a database cursor (format=ndjson|csv), same filters as the list
+    @GetMapping("/admin/appointments/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportAppointments(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean homeVisit,
+            HttpServletResponse response) throws IOException {
+        AppointmentExportService.Format exportFormat = AppointmentExportService.Format.parse(format);
+        response.setContentType(exportFormat.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("appointments." + exportFormat.extension())
+                .build()
+                .toString());
+        exportService.export(exportFormat, status, from, to, homeVisit, response.getOutputStream());
+    }
+
+    // Admin: Live appointment counts per status (in memory, no table scan)
+    @GetMapping("/admin/appointments/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<AppointmentStatus, Long>> getStatusCounts() {
+        return ResponseEntity.ok(statusCounters.snapshot());
+    }
+
+    // Admin: Single-use ticket for opening the event stream (EventSource cannot send the token)
+    @PostMapping("/admin/appointments/events/ticket")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamTicketDto> issueStreamTicket(Authentication authentication) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new StreamTicketDto(streamTicketStore.issue(authentication), streamTicketStore.ttlMillis()));
     }
 
-    // Admin: Update Status
+    // Admin: Live stream of bookings, status changes and report uploads (resumes from Last-Event-ID,
+    // or ?lastEventId= when the client had to reopen the stream with a fresh ticket)
+    @GetMapping(value = "/admin/appointments/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String resumeFrom) {
+        return eventBroadcaster.subscribe(lastEventId != null ? lastEventId : resumeFrom);
+    }
+
+    // Admin: Update Status (optional If-Match: "<version>" from the appointment)
     @PutMapping("/admin/appointments/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Appointment> updateStatus(@PathVariable Long id,
-            @RequestBody UpdateAppointmentStatusRequest request) {
-        return ResponseEntity.ok(appointmentService.updateStatus(id, request.getStatus(), request.getReportUrl()));
+    public ResponseEntity<AppointmentDto> updateStatus(@PathVariable Long id,
+            @RequestBody UpdateAppointmentStatusRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AppointmentDto updated = appointmentService.updateStatus(id, request.getStatus(), request.getReportUrl(),
+                ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updated.version())).body(updated);
+    }
+
+    // Admin: Move many appointments to one status (end of a collection round)
+    @PutMapping("/admin/appointments/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateResultDto> bulkUpdateStatus(@RequestBody BulkStatusUpdateRequest request) {
+        return ResponseEntity.ok(appointmentService.bulkUpdateStatus(request));
+    }
+
+    // Admin: Upload the report file (PDF/JPEG/PNG) for an appointment; sets its reportUrl
+    @PostMapping(value = "/admin/appointments/{id}/report", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AppointmentDto> uploadReport(@PathVariable Long id,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        AppointmentDto updated = reportStorageService.store(id, file);
+        return ResponseEntity.ok().eTag(ETags.of(updated.version())).body(updated);
+    }
+
+    // User/Admin: Download a report. Range, If-None-Match and If-Modified-Since are handled by
+    // Spring MVC for Resource bodies (206 regions / 304) from the headers set here.
+    @GetMapping("/appointments/{id}/report")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<Resource> downloadReport(@PathVariable Long id,
+            @CurrentUser(lightweight = true) User user, Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        ReportStorageService.StoredReport report = reportStorageService.open(id, user.getId(), admin);
+        return ResponseEntity.ok()
+                .eTag(report.etag())
+                .lastModified(report.file().getUploadedAt().atZone(ZoneId.systemDefault()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .contentType(MediaType.parseMediaType(report.file().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(report.file().getFileName(), StandardCharsets.UTF_8).build().toString())
+                .body(report.resource());
     }
 }
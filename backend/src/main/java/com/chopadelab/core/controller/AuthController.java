@@ -2,7 +2,10 @@ package com.chopadelab.core.controller;
 
 import com.chopadelab.core.dto.AuthRequest;
 import com.chopadelab.core.dto.AuthResponse;
+import com.chopadelab.core.dto.RefreshTokenRequest;
+import com.chopadelab.core.security.LoginThrottle;
 import com.chopadelab.core.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,14 +16,30 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
+    public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request, HttpServletRequest httpRequest) {
+        // Throttle before the user lookup and BCrypt verify
+        loginThrottle.checkLogin(httpRequest, request.getUsername());
         return ResponseEntity.ok(authService.login(request));
     }
 
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@RequestBody AuthRequest request) {
+    public ResponseEntity<AuthResponse> register(@RequestBody AuthRequest request, HttpServletRequest httpRequest) {
+        loginThrottle.checkRegister(httpRequest);
         return ResponseEntity.ok(authService.register(request));
     }
+
+    // Rotate: the presented refresh token is spent and a new pair is returned
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
 }
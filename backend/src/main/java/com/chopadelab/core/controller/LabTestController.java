@@ -1,11 +1,23 @@
 package com.chopadelab.core.controller;
 
 import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.dto.LabTestImportResultDto;
+import com.chopadelab.core.service.LabTestCatalog;
+import com.chopadelab.core.service.LabTestImportService;
+import com.chopadelab.core.service.LabTestSearchIndex;
 import com.chopadelab.core.service.LabTestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.List;
 
@@ -15,11 +27,33 @@ import java.util.List;
 public class LabTestController {
 
     private final LabTestService labTestService;
+    private final LabTestCatalog labTestCatalog;
+    private final LabTestSearchIndex labTestSearchIndex;
+    private final LabTestImportService labTestImportService;
 
-    // Public/User: List all active tests
+    // Public/User: List all active tests (pre-serialized snapshot, revalidated via ETag)
     @GetMapping("/tests")
-    public ResponseEntity<List<LabTest>> getAllActiveTests() {
-        return ResponseEntity.ok(labTestService.getAllActiveTests());
+    public ResponseEntity<byte[]> getAllActiveTests(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LabTestCatalog.Snapshot snapshot = labTestCatalog.snapshot();
+        if (matches(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
+    }
+
+    // Public/User: Ranked fuzzy search over active tests ("thyroid", "sugar", "lft", typos)
+    @GetMapping("/tests/search")
+    public ResponseEntity<List<LabTest>> searchTests(@RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(labTestSearchIndex.search(query, limit));
     }
 
     // Admin: List ALL tests (including inactive)
@@ -39,8 +73,22 @@ public class LabTestController {
     // Admin: Update test
     @PutMapping("/admin/tests/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<LabTest> updateTest(@PathVariable Long id, @RequestBody LabTest labTest) {
-        return ResponseEntity.ok(labTestService.updateTest(id, labTest));
+    public ResponseEntity<LabTest> updateTest(@PathVariable Long id, @RequestBody LabTest labTest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // If-Match wins; otherwise the version echoed back in the body is the precondition
+        Long expectedVersion = ifMatch != null ? ETags.parseIfMatch(ifMatch) : labTest.getVersion();
+        LabTest updated = labTestService.updateTest(id, labTest, expectedVersion);
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
+    }
+
+    // Admin: Bulk create/update from a CSV price list (upsert on testName); dryRun=true only reports the diff
+    @PostMapping(value = "/admin/tests/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<LabTestImportResultDto> importTests(@RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean dryRun) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            return ResponseEntity.ok(labTestImportService.importCsv(csv, dryRun));
+        }
     }
 
     // Admin: Delete test
@@ -50,4 +98,17 @@ public class LabTestController {
         labTestService.deleteTest(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,53 @@
+package com.chopadelab.core.controller;
+
+import com.chopadelab.core.dto.DailyRollupDto;
+import com.chopadelab.core.repository.RollupRepository;
+import com.chopadelab.core.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/rollups")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class RollupController {
+
+    private final RollupService rollupService;
+
+    // Admin: Revenue and volume per day (inclusive range)
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyRollupDto>> getDaily(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.daily(from, to));
+    }
+
+    // Admin: Volume and list-price revenue per test over the range
+    @GetMapping("/tests")
+    public ResponseEntity<List<RollupRepository.TestTotal>> getByTest(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.byTest(from, to));
+    }
+
+    // Admin: Same, grouped by test category
+    @GetMapping("/categories")
+    public ResponseEntity<List<RollupRepository.CategoryTotal>> getByCategory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(rollupService.byCategory(from, to));
+    }
+
+    // Admin: Recompute every rollup from the appointments table
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuild() {
+        return ResponseEntity.ok(Map.of("days", rollupService.rebuild()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.chopadelab.core.controller;
+
+import com.chopadelab.core.dto.SlotAvailabilityDto;
+import com.chopadelab.core.service.SlotCapacityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/slots")
+@RequiredArgsConstructor
+public class SlotController {
+
+    private final SlotCapacityService slotCapacityService;
+
+    // User: remaining capacity per slot for a date range
+    @GetMapping("/availability")
+    public ResponseEntity<List<SlotAvailabilityDto>> getAvailability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean homeVisit) {
+        return ResponseEntity.ok(slotCapacityService.availability(from, to, homeVisit));
+    }
+}
@@ -3,6 +3,8 @@ package com.chopadelab.core.controller;
 import com.chopadelab.core.dto.UserInfoDto;
 import com.chopadelab.core.entity.User;
 import com.chopadelab.core.repository.UserRepository;
+import com.chopadelab.core.security.CurrentUser;
+import com.chopadelab.core.service.UserCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,13 +22,11 @@ import java.util.stream.Collectors;
 public class UserController {
 
         private final UserRepository userRepository;
+        private final UserCache userCache;
 
         @GetMapping("/me")
         @PreAuthorize("isAuthenticated()")
-        public ResponseEntity<UserInfoDto> getCurrentUser(Authentication authentication) {
-                User user = userRepository.findByUsername(authentication.getName())
-                                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+        public ResponseEntity<UserInfoDto> getCurrentUser(@CurrentUser User user) {
                 return ResponseEntity.ok(mapToDto(user));
         }
 
@@ -51,6 +51,7 @@ public class UserController {
                         user.setPhoneNumber(request.getPhoneNumber());
 
                 userRepository.save(user);
+                userCache.invalidate(user.getUsername());
 
                 return ResponseEntity.ok(mapToDto(user));
         }
@@ -0,0 +1,90 @@
+package com.chopadelab.core.dto;
+
+import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentLine;
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.service.PricingEngine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read model returned by the appointment endpoints instead of the JPA entity, so that
+ * serialization never walks the patient (password hash, roles) or triggers lazy loads.
+ */
+public record AppointmentDto(
+        Long id,
+        Long patientId,
+        LocalDateTime appointmentTime,
+        String patientName,
+        Integer patientAge,
+        String patientGender,
+        String patientMobile,
+        boolean homeVisit,
+        String collectionAddress,
+        BigDecimal totalAmount,
+        AppointmentStatus status,
+        String reportUrl,
+        Long version,
+        List<TestLine> tests
+) {
+
+    // price and category as booked, so the lines add up to totalAmount after catalog changes
+    public record TestLine(
+            Long id,
+            String testName,
+            BigDecimal price,
+            String category
+    ) {
+        // Appointments booked before lines were kept fall back to the catalog
+        static TestLine from(LabTest test, AppointmentLine booked) {
+            return booked == null
+                    ? new TestLine(test.getId(), test.getTestName(), test.getPrice(), test.getCategory())
+                    : new TestLine(test.getId(), test.getTestName(), booked.getPrice(), booked.getCategory());
+        }
+
+        public static TestLine from(PricingEngine.Line line) {
+            return new TestLine(line.id(), line.testName(), line.price(), line.category());
+        }
+    }
+
+    /**
+     * Expects {@code tests} and {@code lines} to be initialized already; only the patient's id
+     * is read, which does not initialize a lazy patient proxy.
+     */
+    public static AppointmentDto from(Appointment appointment) {
+        Map<Long, AppointmentLine> booked = new HashMap<>();
+        appointment.getLines().forEach(line -> booked.put(line.getTestId(), line));
+        return from(appointment, appointment.getTests().stream()
+                .sorted(Comparator.comparing(LabTest::getId))
+                .map(test -> TestLine.from(test, booked.get(test.getId())))
+                .toList());
+    }
+
+    /**
+     * Variant for freshly booked appointments whose tests are uninitialized references:
+     * the test lines come from the pricing quote instead.
+     */
+    public static AppointmentDto from(Appointment appointment, List<TestLine> tests) {
+        return new AppointmentDto(
+                appointment.getId(),
+                appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                appointment.getAppointmentTime(),
+                appointment.getPatientName(),
+                appointment.getPatientAge(),
+                appointment.getPatientGender(),
+                appointment.getPatientMobile(),
+                appointment.isHomeVisit(),
+                appointment.getCollectionAddress(),
+                appointment.getTotalAmount(),
+                appointment.getStatus(),
+                appointment.getReportUrl(),
+                appointment.getVersion(),
+                tests);
+    }
+}
@@ -0,0 +1,15 @@
+package com.chopadelab.core.dto;
+
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.service.AppointmentChangedEvent;
+
+import java.time.Instant;
+
+public record AppointmentEventDto(
+        long id,
+        AppointmentChangedEvent.Type type,
+        Long appointmentId,
+        AppointmentStatus status,
+        Instant at
+) {
+}
@@ -0,0 +1,12 @@
+package com.chopadelab.core.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of appointments. {@code nextCursor} is null on the last page.
+ */
+public record AppointmentPageDto(
+        List<AppointmentDto> items,
+        String nextCursor
+) {
+}
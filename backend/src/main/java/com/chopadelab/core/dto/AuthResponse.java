@@ -7,5 +7,7 @@ import lombok.Data;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    // Exchange at /api/auth/refresh for a new pair; single use
+    private String refreshToken;
     private UserDto user;
 }
@@ -0,0 +1,22 @@
+package com.chopadelab.core.dto;
+
+import com.chopadelab.core.entity.AppointmentStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateRequest {
+    // Target status for every selected appointment
+    private AppointmentStatus status;
+
+    // Either explicit ids...
+    private List<Long> ids;
+
+    // ...or every appointment matching these filters (same meaning as the admin listing)
+    private AppointmentStatus currentStatus;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Boolean homeVisit;
+}
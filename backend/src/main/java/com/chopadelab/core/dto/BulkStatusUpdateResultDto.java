@@ -0,0 +1,25 @@
+package com.chopadelab.core.dto;
+
+import com.chopadelab.core.entity.AppointmentStatus;
+
+import java.util.List;
+
+public record BulkStatusUpdateResultDto(
+        AppointmentStatus status,
+        int updated,
+        List<Row> rows
+) {
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND,
+        ILLEGAL_TRANSITION
+    }
+
+    public record Row(
+            Long id,
+            Outcome outcome
+    ) {
+    }
+}
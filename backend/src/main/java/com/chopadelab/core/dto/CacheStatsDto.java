@@ -0,0 +1,9 @@
+package com.chopadelab.core.dto;
+
+public record CacheStatsDto(
+        long hits,
+        long misses,
+        long evictions,
+        int size
+) {
+}
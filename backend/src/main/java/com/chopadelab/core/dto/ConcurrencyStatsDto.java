@@ -0,0 +1,11 @@
+package com.chopadelab.core.dto;
+
+public record ConcurrencyStatsDto(
+        String routeClass,
+        int limit,
+        int inFlight,
+        int waiting,
+        long admitted,
+        long rejected
+) {
+}
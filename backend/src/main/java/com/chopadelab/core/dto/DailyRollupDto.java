@@ -0,0 +1,21 @@
+package com.chopadelab.core.dto;
+
+import com.chopadelab.core.entity.DailyRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyRollupDto(
+        LocalDate day,
+        long appointments,
+        long homeVisits,
+        BigDecimal revenue,
+        long completed,
+        BigDecimal completedRevenue,
+        long cancelled
+) {
+    public static DailyRollupDto from(DailyRollup rollup) {
+        return new DailyRollupDto(rollup.getDay(), rollup.getAppointments(), rollup.getHomeVisits(),
+                rollup.getRevenue(), rollup.getCompleted(), rollup.getCompletedRevenue(), rollup.getCancelled());
+    }
+}
@@ -0,0 +1,35 @@
+package com.chopadelab.core.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a catalog CSV import. Counts cover the whole file; {@code errors} and
+ * {@code changes} are capped and {@code truncated} says whether anything was left out.
+ * {@code changes} lists what was (or, on a dry run, would be) created or updated.
+ */
+public record LabTestImportResultDto(
+        boolean dryRun,
+        int rows,
+        int created,
+        int updated,
+        int unchanged,
+        int failed,
+        List<RowError> errors,
+        List<Change> changes,
+        boolean truncated
+) {
+
+    public enum Action {
+        CREATE, UPDATE
+    }
+
+    // line is the 1-based line where the CSV record starts
+    public record RowError(long line, String testName, String message) {
+    }
+
+    public record Change(long line, String testName, Action action, List<FieldChange> fields) {
+    }
+
+    public record FieldChange(String field, String from, String to) {
+    }
+}
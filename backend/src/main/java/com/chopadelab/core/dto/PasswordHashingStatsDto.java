@@ -0,0 +1,12 @@
+package com.chopadelab.core.dto;
+
+public record PasswordHashingStatsDto(
+        int threads,
+        int active,
+        int queued,
+        int queueCapacity,
+        long completed,
+        long rejected,
+        double avgQueueWaitMs
+) {
+}
@@ -0,0 +1,8 @@
+package com.chopadelab.core.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+    private String refreshToken;
+}
@@ -0,0 +1,11 @@
+package com.chopadelab.core.dto;
+
+import java.time.LocalDateTime;
+
+public record SlotAvailabilityDto(
+        LocalDateTime slotStart,
+        boolean homeVisit,
+        int capacity,
+        int available
+) {
+}
@@ -0,0 +1,7 @@
+package com.chopadelab.core.dto;
+
+public record StreamTicketDto(
+        String ticket,
+        long expiresInMs
+) {
+}
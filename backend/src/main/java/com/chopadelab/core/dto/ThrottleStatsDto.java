@@ -0,0 +1,12 @@
+package com.chopadelab.core.dto;
+
+public record ThrottleStatsDto(
+        long allowed,
+        long rejectedByIp,
+        long rejectedByUsername,
+        long rejectedRegistrations,
+        long rejectedWhenFull,
+        int trackedKeys,
+        long evicted
+) {
+}
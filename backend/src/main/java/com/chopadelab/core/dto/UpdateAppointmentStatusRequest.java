@@ -1,9 +1,10 @@
 package com.chopadelab.core.dto;
 
+import com.chopadelab.core.entity.AppointmentStatus;
 import lombok.Data;
 
 @Data
 public class UpdateAppointmentStatusRequest {
-    private String status;
+    private AppointmentStatus status;
     private String reportUrl;
 }
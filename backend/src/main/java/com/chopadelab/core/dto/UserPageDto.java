@@ -0,0 +1,12 @@
+package com.chopadelab.core.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of users. {@code nextCursor} is null on the last page.
+ */
+public record UserPageDto(
+        List<UserSummaryDto> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,17 @@
+package com.chopadelab.core.dto;
+
+import java.util.List;
+
+/**
+ * Row of the admin user search: enough to identify a patient at the front desk, never the
+ * password hash or the full profile.
+ */
+public record UserSummaryDto(
+        Long id,
+        String username,
+        String fullName,
+        String phoneNumber,
+        boolean enabled,
+        List<String> roles
+) {
+}
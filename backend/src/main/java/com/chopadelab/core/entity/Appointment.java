@@ -2,6 +2,7 @@ package com.chopadelab.core.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -13,13 +14,21 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        // Support the keyset-paginated admin listing (filter column + id ordering)
+        @Index(name = "idx_appointments_status_id", columnList = "status, id"),
+        @Index(name = "idx_appointments_status_time", columnList = "status, appointment_time"),
+        @Index(name = "idx_appointments_time_id", columnList = "appointment_time, id"),
+        @Index(name = "idx_appointments_home_visit_id", columnList = "is_home_visit, id")
+})
 public class Appointment {
+    // Pooled sequence (not IDENTITY) so Hibernate can batch inserts; see AppointmentSequenceInitializer
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User patient;
 
@@ -28,6 +37,14 @@ public class Appointment {
     @Builder.Default
     private Set<LabTest> tests = new HashSet<>();
 
+    // The tests as priced at booking, for rollups and read models; empty on rows booked before it existed.
+    // A Set (one line per test) so it can be fetch-joined together with tests
+    @ElementCollection
+    @CollectionTable(name = "appointment_lines", joinColumns = @JoinColumn(name = "appointment_id"))
+    @Builder.Default
+    private Set<AppointmentLine> lines = new HashSet<>();
+
+    @Column(name = "appointment_time")
     private LocalDateTime appointmentTime;
 
     // Patient Details
@@ -37,13 +54,25 @@ public class Appointment {
     private String patientMobile;
 
     // Logistics
+    @Column(name = "is_home_visit")
     private boolean isHomeVisit;
     private String collectionAddress;
     private BigDecimal totalAmount;
 
-    // Status: PENDING, CONFIRMED, COMPLETED, CANCELLED
-    private String status;
+    // PricingEngine price table the total was computed from
+    private Long priceTableVersion;
+
+    // Stored by name, so rows written before the enum existed still map
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private AppointmentStatus status;
 
     // Report
     private String reportUrl;
+
+    // Optimistic lock; existing rows start at 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,28 @@
+package com.chopadelab.core.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * A test on an appointment with the list price and category it had when booked, so revenue
+ * rollups do not move when the catalog changes later.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class AppointmentLine {
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+
+    @Column(nullable = false)
+    private BigDecimal price;
+
+    private String category;
+}
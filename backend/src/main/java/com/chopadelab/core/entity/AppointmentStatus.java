@@ -0,0 +1,33 @@
+package com.chopadelab.core.entity;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Appointment lifecycle. Transitions not listed here are rejected by AppointmentService;
+ * COMPLETED and CANCELLED are final.
+ */
+public enum AppointmentStatus {
+    PENDING,
+    CONFIRMED,
+    COLLECTED,
+    COMPLETED,
+    CANCELLED;
+
+    private static final Map<AppointmentStatus, Set<AppointmentStatus>> TRANSITIONS = new EnumMap<>(
+            AppointmentStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, COLLECTED, COMPLETED, CANCELLED));
+        TRANSITIONS.put(CONFIRMED, EnumSet.of(COLLECTED, COMPLETED, CANCELLED));
+        TRANSITIONS.put(COLLECTED, EnumSet.of(COMPLETED, CANCELLED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(AppointmentStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(AppointmentStatus.class));
+    }
+
+    public boolean canTransitionTo(AppointmentStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+}
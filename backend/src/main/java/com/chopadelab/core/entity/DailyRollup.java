@@ -0,0 +1,43 @@
+package com.chopadelab.core.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-day totals by appointment date, maintained incrementally by RollupService.
+ * {@code appointments}, {@code homeVisits} and {@code revenue} cover every appointment that
+ * is not cancelled; completed and cancelled appointments are counted separately.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "daily_rollups")
+public class DailyRollup {
+    @Id
+    @Column(name = "rollup_date")
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private long appointments;
+
+    @Column(name = "home_visits", nullable = false)
+    private long homeVisits;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private long completed;
+
+    @Column(name = "completed_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal completedRevenue;
+
+    @Column(nullable = false)
+    private long cancelled;
+}
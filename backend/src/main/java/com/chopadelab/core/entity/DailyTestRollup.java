@@ -0,0 +1,42 @@
+package com.chopadelab.core.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Per-day, per-test volume of appointments that are not cancelled, valued at the list price
+ * and filed under the category the test had when each appointment was booked (a test whose
+ * price or category changed has one row per category). Category totals are summed from these
+ * rows at query time.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "daily_test_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_daily_test_rollups_day_test_category", columnNames = {
+        "rollup_date", "test_id", "category" }))
+public class DailyTestRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private long appointments;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
@@ -2,6 +2,7 @@ package com.chopadelab.core.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 
 @Entity
@@ -27,4 +28,10 @@ public class LabTest {
 
     @Builder.Default
     private boolean active = true;
+
+    // Optimistic lock; existing rows start at 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
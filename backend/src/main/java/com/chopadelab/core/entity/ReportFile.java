@@ -0,0 +1,42 @@
+package com.chopadelab.core.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The current report of an appointment. The bytes live in ReportStorageService's blob store
+ * under {@code sha256}, so identical uploads share one file.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "report_files", indexes = @Index(name = "idx_report_files_sha256", columnList = "sha256"))
+public class ReportFile {
+    @Id
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    // Copied from the appointment so downloads authorize without joining it
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "uploaded_at", nullable = false)
+    private LocalDateTime uploadedAt;
+}
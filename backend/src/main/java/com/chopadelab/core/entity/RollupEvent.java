@@ -0,0 +1,33 @@
+package com.chopadelab.core.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Outbox row: an appointment change the rollups have not absorbed yet. Written in the
+ * transaction that makes the change and folded into the rollup tables by RollupService.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "rollup_events")
+public class RollupEvent {
+
+    public enum Kind {
+        BOOKED, COMPLETED, CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+}
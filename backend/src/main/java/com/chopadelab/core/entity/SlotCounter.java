@@ -0,0 +1,38 @@
+package com.chopadelab.core.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Check;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserved count per collection slot. The check constraint is the source of truth against
+ * overselling; SlotCapacityService keeps an in-memory mirror to avoid hitting full slots.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "slot_counters", uniqueConstraints = @UniqueConstraint(name = "uk_slot_counters_slot", columnNames = {
+        "slot_start", "home_visit" }))
+@Check(constraints = "reserved >= 0 AND reserved <= capacity")
+public class SlotCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "slot_start", nullable = false)
+    private LocalDateTime slotStart;
+
+    @Column(name = "home_visit", nullable = false)
+    private boolean homeVisit;
+
+    @Column(nullable = false)
+    private int capacity;
+
+    @Column(nullable = false)
+    private int reserved;
+}
@@ -1,5 +1,6 @@
 package com.chopadelab.core.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -13,6 +14,7 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 @Table(name = "`user`") // keep backticks only if your DB needs them
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" }) // @CurrentUser(lightweight) hands out proxies
 public class User {
 
     @Id
@@ -0,0 +1,20 @@
+package com.chopadelab.core.exception;
+
+import lombok.Getter;
+
+/**
+ * The resource changed since the client (or this request) read it. Carries the current
+ * state so the 409 response lets the client reconcile without another round trip.
+ */
+@Getter
+public class ConcurrentUpdateException extends RuntimeException {
+
+    private final transient Object current;
+    private final Long version;
+
+    public ConcurrentUpdateException(String message, Object current, Long version) {
+        super(message);
+        this.current = current;
+        this.version = version;
+    }
+}
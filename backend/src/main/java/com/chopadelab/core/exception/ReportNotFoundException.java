@@ -0,0 +1,7 @@
+package com.chopadelab.core.exception;
+
+public class ReportNotFoundException extends RuntimeException {
+    public ReportNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.chopadelab.core.exception;
+
+public class SlotUnavailableException extends RuntimeException {
+    public SlotUnavailableException(String message) {
+        super(message);
+    }
+}
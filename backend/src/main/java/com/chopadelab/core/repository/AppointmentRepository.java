@@ -1,13 +1,156 @@
 package com.chopadelab.core.repository;
 
 import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentStatus;
 import com.chopadelab.core.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+    // Patient history with tests and booked lines in a single statement
+    @EntityGraph(attributePaths = { "tests", "lines" })
     List<Appointment> findByPatient(User patient);
+
+    // Keyset page (newest first): pass the last seen id as afterId, limit via Pageable (no count query).
+    // Returns ids only; load the rows with findWithTestsByIdIn to avoid paginating a fetch join.
+    @Query("""
+            select a.id from Appointment a
+            where (:afterId is null or a.id < :afterId)
+              and (:status is null or a.status = :status)
+              and (:from is null or a.appointmentTime >= :from)
+              and (:to is null or a.appointmentTime < :to)
+              and (:homeVisit is null or a.isHomeVisit = :homeVisit)
+            order by a.id desc
+            """)
+    List<Long> findPageIds(@Param("afterId") Long afterId,
+            @Param("status") AppointmentStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("homeVisit") Boolean homeVisit,
+            Pageable limit);
+
+    @Query("""
+            select distinct a from Appointment a left join fetch a.tests left join fetch a.lines
+            where a.id in :ids order by a.id desc
+            """)
+    List<Appointment> findWithTestsByIdIn(@Param("ids") List<Long> ids);
+
+    @Query("select a.patient.id from Appointment a where a.id = :id")
+    Optional<Long> findPatientIdById(@Param("id") Long id);
+
+    // Just what a status transition needs, without loading entities
+    interface StatusView {
+        Long getId();
+
+        AppointmentStatus getStatus();
+
+        LocalDateTime getAppointmentTime();
+
+        Boolean getHomeVisit();
+    }
+
+    // Locked until the transaction ends, in id order so concurrent bulk updates over
+    // overlapping ids queue instead of deadlocking
+    @Query(value = """
+            select a.id as id, a.status as status, a.appointment_time as appointmentTime,
+                   a.is_home_visit as homeVisit
+            from appointments a where a.id in (:ids)
+            order by a.id
+            for update
+            """, nativeQuery = true)
+    List<StatusView> lockStatusViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Set-based transition of rows already locked and checked by lockStatusViewsByIdIn
+    @Modifying
+    @Query("update Appointment a set a.status = :status, a.version = a.version + 1 where a.id in :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") AppointmentStatus status);
+
+    interface StatusCount {
+        AppointmentStatus getStatus();
+
+        long getCount();
+    }
+
+    @Query("select a.status as status, count(a) as count from Appointment a group by a.status")
+    List<StatusCount> countByStatus();
+
+    // One row per appointment/test pair, appointments contiguous (ordered by id)
+    interface ExportRow {
+        Long getId();
+
+        Long getPatientId();
+
+        LocalDateTime getAppointmentTime();
+
+        String getPatientName();
+
+        Integer getPatientAge();
+
+        String getPatientGender();
+
+        String getPatientMobile();
+
+        Boolean getHomeVisit();
+
+        String getCollectionAddress();
+
+        BigDecimal getTotalAmount();
+
+        AppointmentStatus getStatus();
+
+        String getReportUrl();
+
+        Long getVersion();
+
+        Long getTestId();
+
+        String getTestName();
+
+        BigDecimal getTestPrice();
+
+        String getTestCategory();
+    }
+
+    // Forward-only cursor for exports: scalar rows never enter the persistence context, and
+    // the fetch size keeps the driver from buffering the whole result (needs an open transaction).
+    // Prices and categories are the booked ones; the catalog only fills in for rows without lines.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select a.id as id, a.patient.id as patientId, a.appointmentTime as appointmentTime,
+                   a.patientName as patientName, a.patientAge as patientAge, a.patientGender as patientGender,
+                   a.patientMobile as patientMobile, a.isHomeVisit as homeVisit,
+                   a.collectionAddress as collectionAddress, a.totalAmount as totalAmount, a.status as status,
+                   a.reportUrl as reportUrl, a.version as version, t.id as testId, t.testName as testName,
+                   case when l.testId is null then t.price else l.price end as testPrice,
+                   case when l.testId is null then t.category else l.category end as testCategory
+            from Appointment a left join a.tests t left join a.lines l on l.testId = t.id
+            where (:status is null or a.status = :status)
+              and (:from is null or a.appointmentTime >= :from)
+              and (:to is null or a.appointmentTime < :to)
+              and (:homeVisit is null or a.isHomeVisit = :homeVisit)
+            order by a.id, t.id
+            """)
+    Stream<ExportRow> streamForExport(@Param("status") AppointmentStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("homeVisit") Boolean homeVisit);
 }
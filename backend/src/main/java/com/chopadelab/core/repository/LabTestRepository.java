@@ -2,8 +2,10 @@ package com.chopadelab.core.repository;
 
 import com.chopadelab.core.entity.LabTest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.List;
 
@@ -12,4 +14,24 @@ public interface LabTestRepository extends JpaRepository<LabTest, Long> {
     List<LabTest> findByActiveTrue();
 
     Optional<LabTest> findByTestName(String testName);
+
+    // Editable fields of every test (active or not), what a CSV import diffs against
+    interface CatalogRow {
+        String getTestName();
+
+        BigDecimal getPrice();
+
+        String getCategory();
+
+        String getDescription();
+
+        Boolean getActive();
+    }
+
+    @Query("""
+            select t.testName as testName, t.price as price, t.category as category,
+                   t.description as description, t.active as active
+            from LabTest t
+            """)
+    List<CatalogRow> findCatalogRows();
 }
@@ -0,0 +1,18 @@
+package com.chopadelab.core.repository;
+
+import com.chopadelab.core.entity.ReportFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface ReportFileRepository extends JpaRepository<ReportFile, Long> {
+
+    // Which of these blobs some report still points at (served by idx_report_files_sha256)
+    @Query("select distinct r.sha256 from ReportFile r where r.sha256 in :shas")
+    Set<String> findReferencedSha256(@Param("shas") Collection<String> shas);
+}
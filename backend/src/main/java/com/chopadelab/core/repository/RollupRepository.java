@@ -0,0 +1,180 @@
+package com.chopadelab.core.repository;
+
+import com.chopadelab.core.entity.DailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Daily and per-test rollups and the outbox of appointment changes feeding them. Deltas are
+ * computed in SQL from the appointment rows themselves, so one statement covers any number
+ * of appointments.
+ */
+public interface RollupRepository extends JpaRepository<DailyRollup, LocalDate> {
+
+    List<DailyRollup> findByDayBetweenOrderByDay(LocalDate from, LocalDate to);
+
+    // Plain insert into the outbox: booking transactions never touch the shared rollup rows
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            insert into rollup_events (appointment_id, kind)
+            select a.id, :kind from appointments a
+            where a.id in (:ids) and a.appointment_time is not null
+            """, nativeQuery = true)
+    int recordEvents(@Param("ids") Collection<Long> ids, @Param("kind") String kind);
+
+    @Query(value = "select e.id from rollup_events e order by e.id limit :limit", nativeQuery = true)
+    List<Long> findPendingEventIds(@Param("limit") int limit);
+
+    /**
+     * Adds the given events to their days: BOOKED counts an appointment and its amount as
+     * active, CANCELLED moves it from active to cancelled, COMPLETED adds it to completed.
+     * Rows are upserted in date order so that concurrent writers lock them in the same order.
+     */
+    @Modifying
+    @Query(value = """
+            insert into daily_rollups (rollup_date, appointments, home_visits, revenue, completed,
+                                       completed_revenue, cancelled)
+            select d.day, sum(d.active), coalesce(sum(d.active) filter (where d.home_visit), 0),
+                   sum(d.active * d.amount),
+                   count(*) filter (where d.kind = 'COMPLETED'),
+                   coalesce(sum(d.amount) filter (where d.kind = 'COMPLETED'), 0),
+                   count(*) filter (where d.kind = 'CANCELLED')
+            from (select cast(a.appointment_time as date) as day, a.is_home_visit as home_visit,
+                         coalesce(a.total_amount, 0) as amount, e.kind,
+                         case e.kind when 'BOOKED' then 1 when 'CANCELLED' then -1 else 0 end as active
+                  from rollup_events e join appointments a on a.id = e.appointment_id
+                  where e.id in (:ids)) d
+            group by d.day
+            order by d.day
+            on conflict (rollup_date) do update set
+                appointments = daily_rollups.appointments + excluded.appointments,
+                home_visits = daily_rollups.home_visits + excluded.home_visits,
+                revenue = daily_rollups.revenue + excluded.revenue,
+                completed = daily_rollups.completed + excluded.completed,
+                completed_revenue = daily_rollups.completed_revenue + excluded.completed_revenue,
+                cancelled = daily_rollups.cancelled + excluded.cancelled
+            """, nativeQuery = true)
+    int applyDailyEvents(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = """
+            insert into daily_test_rollups (rollup_date, test_id, category, appointments, revenue)
+            select cast(a.appointment_time as date), l.test_id, coalesce(l.category, 'Uncategorized'),
+                   sum(case e.kind when 'BOOKED' then 1 else -1 end),
+                   sum(case e.kind when 'BOOKED' then l.price else -l.price end)
+            from rollup_events e
+            join appointments a on a.id = e.appointment_id
+            join appointment_lines l on l.appointment_id = a.id
+            where e.id in (:ids) and e.kind in ('BOOKED', 'CANCELLED')
+            group by 1, 2, 3
+            order by 1, 2, 3
+            on conflict (rollup_date, test_id, category) do update set
+                appointments = daily_test_rollups.appointments + excluded.appointments,
+                revenue = daily_test_rollups.revenue + excluded.revenue
+            """, nativeQuery = true)
+    int applyPerTestEvents(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "delete from rollup_events where id in (:ids)", nativeQuery = true)
+    int deleteEvents(@Param("ids") Collection<Long> ids);
+
+    // In a rebuild's snapshot: exactly the events whose appointment changes it has counted
+    @Modifying
+    @Query(value = "delete from rollup_events", nativeQuery = true)
+    int deleteAllEvents();
+
+    // Appointments booked before appointment_lines existed get lines at the current catalog price
+    @Modifying
+    @Query(value = """
+            insert into appointment_lines (appointment_id, test_id, price, category)
+            select j.appointment_id, t.id, t.price, t.category
+            from appointment_tests j join lab_tests t on t.id = j.test_id
+            where not exists (select 1 from appointment_lines l where l.appointment_id = j.appointment_id)
+            """, nativeQuery = true)
+    int backfillLines();
+
+    @Modifying
+    @Query(value = "delete from daily_test_rollups", nativeQuery = true)
+    void deleteAllPerTest();
+
+    @Modifying
+    @Query(value = "delete from daily_rollups", nativeQuery = true)
+    void deleteAllDaily();
+
+    @Modifying
+    @Query(value = """
+            insert into daily_rollups (rollup_date, appointments, home_visits, revenue, completed,
+                                       completed_revenue, cancelled)
+            select cast(a.appointment_time as date),
+                   count(*) filter (where a.status is distinct from 'CANCELLED'),
+                   count(*) filter (where a.status is distinct from 'CANCELLED' and a.is_home_visit),
+                   coalesce(sum(a.total_amount) filter (where a.status is distinct from 'CANCELLED'), 0),
+                   count(*) filter (where a.status = 'COMPLETED'),
+                   coalesce(sum(a.total_amount) filter (where a.status = 'COMPLETED'), 0),
+                   count(*) filter (where a.status = 'CANCELLED')
+            from appointments a
+            where a.appointment_time is not null
+            group by cast(a.appointment_time as date)
+            """, nativeQuery = true)
+    int rebuildDaily();
+
+    @Modifying
+    @Query(value = """
+            insert into daily_test_rollups (rollup_date, test_id, category, appointments, revenue)
+            select cast(a.appointment_time as date), l.test_id, coalesce(l.category, 'Uncategorized'),
+                   count(*), sum(l.price)
+            from appointments a
+            join appointment_lines l on l.appointment_id = a.id
+            where a.appointment_time is not null and a.status is distinct from 'CANCELLED'
+            group by 1, 2, 3
+            """, nativeQuery = true)
+    int rebuildPerTest();
+
+    interface TestTotal {
+        Long getTestId();
+
+        String getTestName();
+
+        String getCategory();
+
+        long getAppointments();
+
+        BigDecimal getRevenue();
+    }
+
+    // Grouped by the booked category like sumByCategory, so both split revenue the same way;
+    // a test that changed category appears once per category
+    @Query("""
+            select r.testId as testId, t.testName as testName, r.category as category,
+                   sum(r.appointments) as appointments, sum(r.revenue) as revenue
+            from DailyTestRollup r join LabTest t on t.id = r.testId
+            where r.day between :from and :to
+            group by r.testId, t.testName, r.category
+            order by sum(r.revenue) desc
+            """)
+    List<TestTotal> sumByTest(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    interface CategoryTotal {
+        String getCategory();
+
+        long getAppointments();
+
+        BigDecimal getRevenue();
+    }
+
+    @Query("""
+            select r.category as category, sum(r.appointments) as appointments, sum(r.revenue) as revenue
+            from DailyTestRollup r
+            where r.day between :from and :to
+            group by r.category
+            order by sum(r.revenue) desc
+            """)
+    List<CategoryTotal> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,48 @@
+package com.chopadelab.core.repository;
+
+import com.chopadelab.core.entity.SlotCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface SlotCounterRepository extends JpaRepository<SlotCounter, Long> {
+
+    Optional<SlotCounter> findBySlotStartAndHomeVisit(LocalDateTime slotStart, boolean homeVisit);
+
+    List<SlotCounter> findBySlotStartGreaterThanEqualAndSlotStartLessThan(LocalDateTime from, LocalDateTime to);
+
+    // Creates the slot row on first booking; an existing row is left alone (and unlocked)
+    @Modifying
+    @Query(value = """
+            insert into slot_counters (slot_start, home_visit, capacity, reserved)
+            values (:slotStart, :homeVisit, :capacity, 0)
+            on conflict (slot_start, home_visit) do nothing
+            """, nativeQuery = true)
+    void insertSlotIfAbsent(@Param("slotStart") LocalDateTime slotStart,
+            @Param("homeVisit") boolean homeVisit,
+            @Param("capacity") int capacity);
+
+    // Returns 0 when the slot cannot take that many more bookings under the configured capacity.
+    // The stored capacity follows the configuration here, never below what is already reserved,
+    // so lowering it only closes the slot instead of tripping the check constraint.
+    @Modifying
+    @Query("""
+            update SlotCounter s set s.reserved = s.reserved + :places, s.capacity = :capacity
+            where s.slotStart = :slotStart and s.homeVisit = :homeVisit and s.reserved + :places <= :capacity
+            """)
+    int tryReserve(@Param("slotStart") LocalDateTime slotStart, @Param("homeVisit") boolean homeVisit,
+            @Param("places") int places, @Param("capacity") int capacity);
+
+    @Modifying
+    @Query("""
+            update SlotCounter s set s.reserved = case when s.reserved > :places then s.reserved - :places else 0 end
+            where s.slotStart = :slotStart and s.homeVisit = :homeVisit and s.reserved > 0
+            """)
+    int release(@Param("slotStart") LocalDateTime slotStart, @Param("homeVisit") boolean homeVisit,
+            @Param("places") int places);
+}
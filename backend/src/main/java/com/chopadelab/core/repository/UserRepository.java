@@ -2,7 +2,10 @@ package com.chopadelab.core.repository;
 
 import com.chopadelab.core.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +15,57 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByUsername(String username);
 
-    // Partial text search for username (case-insensitive)
-    List<User> findByUsernameContainingIgnoreCase(String username);
+    // Used by DisabledUserRegistry to honour disabled accounts without a per-request lookup
+    @Query("select u.username from User u where u.enabled = false")
+    List<String> findDisabledUsernames();
+
+    interface SummaryRow {
+        Long getId();
+
+        String getUsername();
+
+        String getFullName();
+
+        String getPhoneNumber();
+
+        Boolean getEnabled();
+    }
+
+    // Keyset page (newest first) of users whose username or full name contains the pattern, or
+    // whose phone number (digits only) contains digitsPattern. The expressions match the trigram
+    // indexes created by UserSearchIndexInitializer, so '%x%' lookups do not scan the table.
+    // Patterns are lower-cased and LIKE-escaped by the caller; a null digitsPattern matches nothing.
+    @Query(value = """
+            select u.id as id, u.username as username, u.full_name as fullName,
+                   u.phone_number as phoneNumber, u.enabled as enabled
+            from "user" u
+            where u.id < :beforeId
+              and (lower(u.username) like :pattern
+                   or lower(u.full_name) like :pattern
+                   or regexp_replace(u.phone_number, '[^0-9]', '', 'g') like :digitsPattern)
+            order by u.id desc
+            limit :limit
+            """, nativeQuery = true)
+    List<SummaryRow> searchPage(@Param("beforeId") long beforeId,
+            @Param("pattern") String pattern,
+            @Param("digitsPattern") String digitsPattern,
+            @Param("limit") int limit);
+
+    interface UserRole {
+        Long getUserId();
+
+        String getRole();
+    }
+
+    @Query("select u.id as userId, r.name as role from User u join u.roles r where u.id in :ids")
+    List<UserRole> findRoleNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface RoleCount {
+        String getRole();
+
+        long getCount();
+    }
+
+    @Query("select r.name as role, count(u) as count from User u join u.roles r group by r.name")
+    List<RoleCount> countByRole();
 }
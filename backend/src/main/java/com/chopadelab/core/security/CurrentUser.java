@@ -0,0 +1,23 @@
+package com.chopadelab.core.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated {@link com.chopadelab.core.entity.User} into a controller method.
+ * The user is loaded at most once per request (see {@link CurrentUserArgumentResolver}).
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    /**
+     * When true, only the id is guaranteed to be populated: the argument is a JPA reference
+     * built from the token's user id, good enough for foreign keys and without a SELECT.
+     */
+    boolean lightweight() default false;
+}
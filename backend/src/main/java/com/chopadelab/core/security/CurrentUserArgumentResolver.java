@@ -0,0 +1,85 @@
+package com.chopadelab.core.security;
+
+import com.chopadelab.core.entity.User;
+import com.chopadelab.core.repository.UserRepository;
+import com.chopadelab.core.service.UserCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link CurrentUser} parameters and memoizes the loaded user as a request attribute,
+ * so controllers and {@link com.chopadelab.core.util.SecurityUtil} share a single lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".USER";
+
+    private final UserCache userCache;
+    private final UserRepository userRepository;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && User.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        CurrentUser annotation = parameter.getParameterAnnotation(CurrentUser.class);
+        return annotation != null && annotation.lightweight()
+                ? resolveReference(webRequest)
+                : resolve(webRequest);
+    }
+
+    /**
+     * Current user for code outside controller arguments (bound to the current request).
+     */
+    public User currentUser() {
+        return resolve(RequestContextHolder.currentRequestAttributes());
+    }
+
+    private User resolve(RequestAttributes attributes) {
+        Object memo = attributes.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo instanceof User user) {
+            return user;
+        }
+        User user = userCache.findByUsername(currentUsername())
+                .orElseThrow(() -> new AccessDeniedException("Authenticated user not found"));
+        attributes.setAttribute(USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    private User resolveReference(RequestAttributes attributes) {
+        Object memo = attributes.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo instanceof User user) {
+            return user;
+        }
+        Object token = attributes.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (token instanceof VerifiedToken verified && verified.userId() != null) {
+            return userRepository.getReferenceById(verified.userId());
+        }
+        // Tokens issued before the uid claim existed: fall back to a full load
+        return resolve(attributes);
+    }
+
+    private String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth.getName() == null) {
+            throw new AccessDeniedException("No authenticated user");
+        }
+        return auth.getName();
+    }
+}
@@ -0,0 +1,42 @@
+package com.chopadelab.core.security;
+
+import com.chopadelab.core.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * In-memory snapshot of disabled usernames, used by the claims-only JWT filter so that
+ * {@code User.enabled = false} is honoured without a DB query on every request.
+ * The snapshot is re-read on a short fixed delay and swapped in as an immutable set.
+ */
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class DisabledUserRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(DisabledUserRegistry.class);
+
+    private final UserRepository userRepository;
+
+    private volatile Set<String> disabledUsernames = Set.of();
+
+    public boolean isDisabled(String username) {
+        return disabledUsernames.contains(username);
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.disabled-users-refresh-ms:5000}")
+    public void refresh() {
+        try {
+            disabledUsernames = Set.copyOf(userRepository.findDisabledUsernames());
+        } catch (Exception e) {
+            // Keep the previous snapshot; the next run will try again
+            log.warn("Could not refresh disabled users", e);
+        }
+    }
+}
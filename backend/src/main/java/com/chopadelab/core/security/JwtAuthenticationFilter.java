@@ -8,8 +8,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.NonNull; // <-- IMPORT ADDED
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -18,7 +19,6 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -26,59 +26,107 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    // EventSource cannot send headers, so the SSE stream alone authenticates with a ?ticket= from StreamTicketStore
+    private static final String EVENT_STREAM_PATH = "/api/admin/appointments/events";
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final DisabledUserRegistry disabledUserRegistry;
+    private final TokenRevocationStore revocationStore;
+    private final StreamTicketStore streamTicketStore;
+
+    // When true, the Authentication is built from verified claims only (no user lookup per request)
+    @Value("${app.security.claims-only-auth:true}")
+    private boolean claimsOnlyAuth;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
-        final String authHeader = request.getHeader("Authorization");
-        final String token;
-        final String username;
+        final String token = resolveToken(request);
+        final VerifiedToken verified;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (token == null) {
+            if (EVENT_STREAM_PATH.equals(request.getRequestURI())) {
+                authenticateTicket(request);
+            }
             filterChain.doFilter(request, response);
             return;
         }
 
-        token = authHeader.substring(7);
+        // Single parse + signature check; subject, roles and expiry all come from this object
         try {
-            username = jwtService.extractUsername(token);
+            verified = jwtService.verify(token);
         } catch (Exception e) {
             filterChain.doFilter(request, response);
             return;
         }
 
+        // Refresh tokens only work on /api/auth/refresh; revoked tokens and sessions not at all
+        if (!verified.isAccessToken() || isRevoked(verified)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String username = verified.subject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            if (jwtService.validateToken(token, userDetails)) {
-                List<String> roles = jwtService.extractRoles(token);
-
-                // This logic is correct (it fixes the ROLE_ROLE_USER bug)
-                var authorities = roles.stream()
-                        .map(role -> {
-                            if (role == null)
-                                return null;
-                            if (role.startsWith("ROLE_")) {
-                                return new SimpleGrantedAuthority(role);
-                            } else {
-                                return new SimpleGrantedAuthority("ROLE_" + role);
-                            }
-                        })
-                        .filter(a -> a != null)
-                        .toList();
+            UserDetails userDetails = claimsOnlyAuth
+                    ? fromClaims(verified)
+                    : userDetailsService.loadUserByUsername(username);
 
+            if (userDetails != null && username.equals(userDetails.getUsername()) && !verified.isExpired()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-                        null, authorities);
+                        null, verified.authorities());
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verified);
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private boolean isRevoked(VerifiedToken verified) {
+        if (verified.expiration() != null && revocationStore.isRevoked(verified.id(), verified.expiration().getTime())) {
+            return true;
+        }
+        return verified.familyExpiration() != null
+                && revocationStore.isRevoked(verified.familyId(), verified.familyExpiration().getTime());
+    }
+
+    private String resolveToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return null;
+    }
+
+    private void authenticateTicket(HttpServletRequest request) {
+        StreamTicketStore.Ticket ticket = streamTicketStore.redeem(request.getParameter("ticket"));
+        if (ticket == null || disabledUserRegistry.isDisabled(ticket.username())) {
+            return;
+        }
+        UserDetails userDetails = User.withUsername(ticket.username())
+                .password("")
+                .authorities(ticket.authorities())
+                .build();
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
+                null, ticket.authorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    private UserDetails fromClaims(VerifiedToken verified) {
+        if (disabledUserRegistry.isDisabled(verified.subject())) {
+            log.debug("Rejecting token for disabled user {}", verified.subject());
+            return null;
+        }
+        return User.withUsername(verified.subject())
+                .password("")
+                .authorities(verified.authorities())
+                .build();
+    }
 }
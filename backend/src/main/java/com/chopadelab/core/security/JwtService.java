@@ -1,7 +1,9 @@
 package com.chopadelab.core.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 // import org.springframework.security.core.GrantedAuthority; // <-- Removed (unused)
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,7 +14,7 @@ import java.nio.charset.StandardCharsets;
 // import java.util.Collection; // <-- Removed (unused)
 import java.util.Date;
 import java.util.List;
-import java.util.function.Function;
+import java.util.UUID;
 
 @Service
 public class JwtService {
@@ -20,17 +22,77 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String secret;
 
-    // 24 hours expiration (adjust as needed)
-    private static final long EXPIRATION = 1000L * 60 * 60 * 24;
+    // Access tokens are short-lived; clients renew them with the refresh token
+    @Value("${jwt.expiration:900000}")
+    private long accessTokenMillis;
 
-    private SecretKeySpec getSigningKey() {
-        return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private long refreshTokenMillis;
+
+    // Absolute lifetime of a login session, however often it is refreshed
+    @Value("${jwt.session-max-lifetime:2592000000}")
+    private long sessionMaxMillis;
+
+    // Built once at startup; both are immutable and thread-safe
+    private SecretKeySpec signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     /**
      * Generate token including roles from UserDetails.
      */
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
+    }
+
+    /**
+     * Generate an access token including roles and, when known, the user id ("uid" claim) so
+     * that controllers can reference the user without loading it. The token belongs to no
+     * session, so it can only be revoked by its own id.
+     */
+    public String generateToken(UserDetails userDetails, Long userId) {
+        return accessToken(userDetails, userId, null, null);
+    }
+
+    public record TokenPair(String accessToken, String refreshToken) {
+    }
+
+    /**
+     * Start a new session (token family) at login or registration.
+     */
+    public TokenPair issueTokens(UserDetails userDetails, Long userId) {
+        Date familyExpiration = new Date(System.currentTimeMillis() + sessionMaxMillis);
+        return rotateTokens(userDetails, userId, UUID.randomUUID().toString(), familyExpiration);
+    }
+
+    /**
+     * New access and refresh token in an existing session; the refresh token never outlives it.
+     */
+    public TokenPair rotateTokens(UserDetails userDetails, Long userId, String familyId, Date familyExpiration) {
+        Date now = new Date();
+        Date refreshExpiry = new Date(Math.min(now.getTime() + refreshTokenMillis, familyExpiration.getTime()));
+        String refresh = Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(userDetails.getUsername())
+                .claim("typ", VerifiedToken.REFRESH)
+                .claim("uid", userId)
+                .claim("fid", familyId)
+                .claim("fexp", familyExpiration.getTime())
+                .issuedAt(now)
+                .expiration(refreshExpiry)
+                .signWith(signingKey)
+                .compact();
+        return new TokenPair(accessToken(userDetails, userId, familyId, familyExpiration), refresh);
+    }
+
+    private String accessToken(UserDetails userDetails, Long userId, String familyId, Date familyExpiration) {
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(ga -> {
                     String a = ga.getAuthority();
@@ -40,26 +102,46 @@ public class JwtService {
                 })
                 .toList();
 
-        // --- THIS IS THE FIX for deprecated methods ---
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + EXPIRATION);
+        Date expiryDate = new Date(now.getTime() + accessTokenMillis);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
+                .claim("typ", VerifiedToken.ACCESS)
                 .claim("roles", roles)
+                .claim("uid", userId)
+                .claim("fid", familyId)
+                .claim("fexp", familyExpiration != null ? familyExpiration.getTime() : null)
                 .issuedAt(now)
                 .expiration(expiryDate) // Use .expiration()
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Parse and verify the token exactly once. Expired or tampered tokens are rejected
+     * by the parser, so a returned VerifiedToken is always usable.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = extractAllClaims(token);
+        Object uid = claims.get("uid");
+        Long userId = uid instanceof Number n ? n.longValue() : null;
+        Object fexp = claims.get("fexp");
+        Date familyExpiration = fexp instanceof Number n ? new Date(n.longValue()) : null;
+        return new VerifiedToken(claims.getSubject(), userId, readRoles(claims), claims.getExpiration(),
+                claims.getId(), claims.get("typ", String.class), claims.get("fid", String.class), familyExpiration);
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
-    @SuppressWarnings("unchecked") // This is fine
     public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
+        return verify(token).roles();
+    }
+
+    private List<String> readRoles(Claims claims) {
         Object rolesObj = claims.get("roles");
         if (rolesObj instanceof List<?>) {
             return ((List<?>) rolesObj).stream()
@@ -69,30 +151,17 @@ public class JwtService {
         return List.of();
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        return resolver.apply(extractAllClaims(token));
-    }
-
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid or expired JWT", e);
         }
     }
 
-
-    private boolean isTokenExpired(String token) {
-        Date expiration = extractClaim(token, Claims::getExpiration);
-        return expiration != null && expiration.before(new Date());
-    }
-
     public boolean validateToken(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        VerifiedToken verified = verify(token);
+        return verified.subject() != null && verified.subject().equals(userDetails.getUsername())
+                && !verified.isExpired();
     }
 }
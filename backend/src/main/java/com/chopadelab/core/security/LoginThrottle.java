@@ -0,0 +1,172 @@
+package com.chopadelab.core.security;
+
+import com.chopadelab.core.config.ThrottleProperties;
+import com.chopadelab.core.dto.ThrottleStatsDto;
+import com.chopadelab.core.exception.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for login and registration, keyed by client IP and by username. Called by
+ * AuthController before any user lookup or password hashing, so a credential-stuffing burst is
+ * turned away with 429 for the cost of a map lookup and a CAS.
+ * <p>
+ * Only buckets that have refilled (or sat idle) are dropped, by a background sweep, so
+ * forgetting a key never hands out extra attempts. When the table is full of live buckets new
+ * keys are refused rather than tracked, until the sweep frees room.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final ThrottleProperties properties;
+    private final LongSupplier nanoTime;
+
+    // ConcurrentHashMap reads are lock-free and its bins are locked independently on insert
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder rejectedRegistrations = new LongAdder();
+    private final LongAdder rejectedWhenFull = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @Autowired
+    public LoginThrottle(ThrottleProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    LoginThrottle(ThrottleProperties properties, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+    }
+
+    public void checkLogin(HttpServletRequest request, String username) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        acquire("login-ip:" + clientIp(request), properties.getIpCapacity(), properties.getIpRefillPerMinute(),
+                now, rejectedByIp);
+        if (username != null && !username.isBlank()) {
+            acquire("login-user:" + username.trim().toLowerCase(Locale.ROOT), properties.getUsernameCapacity(),
+                    properties.getUsernameRefillPerMinute(), now, rejectedByUsername);
+        }
+        allowed.increment();
+    }
+
+    public void checkRegister(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        acquire("register-ip:" + clientIp(request), properties.getRegisterCapacity(),
+                properties.getRegisterRefillPerMinute(), nanoTime.getAsLong(), rejectedRegistrations);
+        allowed.increment();
+    }
+
+    public ThrottleStatsDto stats() {
+        return new ThrottleStatsDto(allowed.sum(), rejectedByIp.sum(), rejectedByUsername.sum(),
+                rejectedRegistrations.sum(), rejectedWhenFull.sum(), buckets.size(), evicted.sum());
+    }
+
+    @Scheduled(fixedDelayString = "${app.throttle.sweep-ms:10000}")
+    public void evictRefilled() {
+        long now = nanoTime.getAsLong();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleEvictMs());
+        buckets.values().removeIf(bucket -> {
+            boolean drop = bucket.isFull(now) || now - bucket.lastSeen > idleNanos;
+            if (drop) {
+                evicted.increment();
+            }
+            return drop;
+        });
+    }
+
+    private void acquire(String key, int capacity, int refillPerMinute, long now, LongAdder rejections) {
+        double tokensPerNano = refillPerMinute / (double) NANOS_PER_MINUTE;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxKeys()) {
+                // Fail closed: dropping a live bucket would reset someone's attempts
+                rejectedWhenFull.increment();
+                long retryAfter = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getSweepMs()));
+                throw new TooManyRequestsException("Too many attempts, please try again in " + retryAfter + " seconds",
+                        retryAfter);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, tokensPerNano, now));
+        }
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            rejections.increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+            throw new TooManyRequestsException("Too many attempts, please try again in " + retryAfter + " seconds",
+                    retryAfter);
+        }
+    }
+
+    // Rightmost X-Forwarded-For entries are appended by our own proxies; anything left of them is client-supplied
+    private String clientIp(HttpServletRequest request) {
+        int hops = properties.getTrustedProxyHops();
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (hops > 0 && forwarded != null && !forwarded.isBlank()) {
+            String[] chain = forwarded.split(",");
+            return chain[Math.max(0, chain.length - hops)].trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private final AtomicReference<State> state;
+        private volatile long lastSeen;
+
+        private record State(double tokens, long refilledAt) {
+        }
+
+        private Bucket(int capacity, double tokensPerNano, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerNano;
+            this.state = new AtomicReference<>(new State(capacity, now));
+            this.lastSeen = now;
+        }
+
+        /**
+         * Takes one token; returns 0 on success, otherwise the nanos until one is available.
+         */
+        long tryAcquire(long now) {
+            lastSeen = now;
+            while (true) {
+                State current = state.get();
+                double tokens = tokensAt(current, now);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.refilledAt())))) {
+                    return 0;
+                }
+            }
+        }
+
+        // A full bucket is indistinguishable from a new one, so it can be dropped
+        boolean isFull(long now) {
+            return tokensAt(state.get(), now) >= capacity;
+        }
+
+        private double tokensAt(State state, long now) {
+            long elapsed = Math.max(0, now - state.refilledAt());
+            return Math.min(capacity, state.tokens() + elapsed * tokensPerNano);
+        }
+    }
+}
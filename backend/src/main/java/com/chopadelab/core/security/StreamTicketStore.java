@@ -0,0 +1,67 @@
+package com.chopadelab.core.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-use tickets for the admin event stream. EventSource cannot send an Authorization
+ * header, so instead of putting the access token in the URL (and in proxy and access logs)
+ * an authenticated request trades it for a random ticket that is good for one stream request
+ * within a few seconds.
+ */
+@Component
+public class StreamTicketStore {
+
+    private static final int TICKET_BYTES = 32;
+
+    public record Ticket(String username, List<GrantedAuthority> authorities, long expiresAtMillis) {
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public StreamTicketStore(@Value("${app.events.ticket-ttl-ms:30000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public long ttlMillis() {
+        return ttlMillis;
+    }
+
+    public String issue(Authentication authentication) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(authentication.getName(), List.copyOf(authentication.getAuthorities()),
+                System.currentTimeMillis() + ttlMillis));
+        return ticket;
+    }
+
+    /**
+     * The ticket's holder, or null when it is unknown, already used or expired.
+     */
+    public Ticket redeem(String ticket) {
+        Ticket redeemed = ticket == null ? null : tickets.remove(ticket);
+        if (redeemed == null || redeemed.expiresAtMillis() < System.currentTimeMillis()) {
+            return null;
+        }
+        return redeemed;
+    }
+
+    // Tickets that were issued but never used
+    @Scheduled(fixedDelayString = "${app.events.ticket-ttl-ms:30000}")
+    public void dropExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAtMillis() < now);
+    }
+}
@@ -0,0 +1,102 @@
+package com.chopadelab.core.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Revoked token ids (jti) and session family ids, filed under the time the revoked token or
+ * session expires anyway. Buckets live in a ring indexed by expiry, so a lookup touches exactly
+ * one bucket (no boxing, no allocation), and a bucket whose window has passed is dropped whole
+ * instead of scanning its entries.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> ring;
+    private final LongSupplier clock;
+
+    private record Bucket(long number, Set<String> ids) {
+    }
+
+    @Autowired
+    public TokenRevocationStore(@Value("${app.security.revocation-bucket-ms:300000}") long bucketMillis,
+            @Value("${jwt.session-max-lifetime:2592000000}") long maxLifetimeMillis) {
+        this(bucketMillis, maxLifetimeMillis, System::currentTimeMillis);
+    }
+
+    TokenRevocationStore(long bucketMillis, long maxLifetimeMillis, LongSupplier clock) {
+        this.bucketMillis = bucketMillis;
+        this.clock = clock;
+        // Enough slots that no live bucket ever shares a slot with another live one
+        this.ring = new AtomicReferenceArray<>((int) (maxLifetimeMillis / bucketMillis) + 2);
+    }
+
+    /**
+     * Revoke {@code id} until {@code expiresAtMillis}. Returns false if it was already revoked.
+     */
+    public boolean revoke(String id, long expiresAtMillis) {
+        if (expiresAtMillis <= clock.getAsLong()) {
+            return true; // Already unusable
+        }
+        long number = expiresAtMillis / bucketMillis;
+        if (number - clock.getAsLong() / bucketMillis >= ring.length() - 1) {
+            throw new IllegalArgumentException("Expiry is beyond jwt.session-max-lifetime");
+        }
+        int slot = slotOf(number);
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.number() == number) {
+                return bucket.ids().add(id);
+            }
+            // Empty, or holding an expired bucket from an earlier lap of the ring
+            Bucket fresh = new Bucket(number, ConcurrentHashMap.newKeySet());
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh.ids().add(id);
+            }
+        }
+    }
+
+    public boolean isRevoked(String id, long expiresAtMillis) {
+        if (id == null) {
+            return false;
+        }
+        long number = expiresAtMillis / bucketMillis;
+        Bucket bucket = ring.get(slotOf(number));
+        return bucket != null && bucket.number() == number && bucket.ids().contains(id);
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null) {
+                size += bucket.ids().size();
+            }
+        }
+        return size;
+    }
+
+    // Everything in a bucket whose window has closed has expired on its own
+    @Scheduled(fixedDelayString = "${app.security.revocation-bucket-ms:300000}")
+    public void dropExpiredBuckets() {
+        long current = clock.getAsLong() / bucketMillis;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.number() < current) {
+                ring.compareAndSet(i, bucket, null);
+            }
+        }
+    }
+
+    private int slotOf(long number) {
+        return (int) Math.floorMod(number, (long) ring.length());
+    }
+}
@@ -0,0 +1,55 @@
+package com.chopadelab.core.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A JWT whose signature and expiry have already been checked by {@link JwtService#verify(String)}.
+ * Holds everything the filter needs so the token is only parsed once per request.
+ * {@code id}, {@code type} and the session family are null on tokens issued before refresh
+ * tokens existed.
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        List<String> roles,
+        Date expiration,
+        String id,
+        String type,
+        String familyId,
+        Date familyExpiration
+) {
+
+    /**
+     * Request attribute under which the filter exposes the verified token to later layers.
+     */
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    public boolean isAccessToken() {
+        return type == null || ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH.equals(type);
+    }
+
+    /**
+     * Roles mapped to authorities, normalised to the "ROLE_" prefix (avoids ROLE_ROLE_USER).
+     */
+    public List<SimpleGrantedAuthority> authorities() {
+        return roles.stream()
+                .filter(role -> role != null)
+                .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
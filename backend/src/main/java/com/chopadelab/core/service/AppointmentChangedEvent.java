@@ -0,0 +1,20 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.AppointmentStatus;
+
+/**
+ * Published by {@link AppointmentService} inside the writing transaction; delivered to
+ * admin dashboards by {@link AppointmentEventBroadcaster} once it commits.
+ */
+public record AppointmentChangedEvent(
+        Type type,
+        Long appointmentId,
+        AppointmentStatus status
+) {
+
+    public enum Type {
+        BOOKED,
+        STATUS_CHANGED,
+        REPORT_UPLOADED
+    }
+}
@@ -0,0 +1,228 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.AppointmentEventDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes committed appointment changes to admin dashboards over Server-Sent Events.
+ * Recent events live in a fixed-size ring so reconnecting clients can resume from
+ * Last-Event-ID. Each subscriber has a bounded queue drained by its own virtual thread, so a
+ * slow client only ever blocks itself; one that falls behind (or asks for an id no longer in
+ * the ring) gets a single "resync" event telling it to reload instead of an unbounded
+ * backlog, and one whose write hangs past the send timeout is dropped.
+ */
+@Component
+public class AppointmentEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentEventBroadcaster.class);
+
+    static final String RESYNC = "resync";
+
+    // Wakes a subscriber thread for a resync without carrying an event
+    private static final AppointmentEventDto WAKE_UP = new AppointmentEventDto(0, null, null, null, null);
+
+    private final AppointmentEventDto[] ring;
+    private long nextId = 1;
+
+    private final int subscriberBuffer;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatMillis;
+    private final long sendTimeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public AppointmentEventBroadcaster(@Value("${app.events.ring-size:1024}") int ringSize,
+            @Value("${app.events.subscriber-buffer:256}") int subscriberBuffer,
+            @Value("${app.events.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+            @Value("${app.events.heartbeat-ms:25000}") long heartbeatMillis,
+            @Value("${app.events.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.ring = new AppointmentEventDto[ringSize];
+        this.subscriberBuffer = subscriberBuffer;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    @TransactionalEventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        AppointmentEventDto dto;
+        synchronized (this) {
+            dto = new AppointmentEventDto(nextId++, event.type(), event.appointmentId(), event.status(),
+                    Instant.now());
+            ring[(int) (dto.id() % ring.length)] = dto;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(dto);
+        }
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        // Register first so nothing published during the replay is missed; duplicates are
+        // harmless because clients only use events as "reload this appointment" hints
+        subscribers.add(subscriber);
+        Long resumeAfter = parseId(lastEventId);
+        if (resumeAfter != null) {
+            List<AppointmentEventDto> missed = eventsAfter(resumeAfter);
+            if (missed == null) {
+                subscriber.resync();
+            } else {
+                missed.forEach(subscriber::offer);
+            }
+        }
+        subscriber.start();
+        return emitter;
+    }
+
+    // A write stuck on a client that stopped reading would otherwise hold its subscriber until the TCP timeout
+    @Scheduled(fixedDelayString = "${app.events.send-timeout-ms:10000}")
+    public void dropStalledSubscribers() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutMillis) {
+                log.debug("Dropping SSE subscriber stuck in a send for {} ms", now - since);
+                subscriber.close();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(Subscriber::close);
+    }
+    /**
+     * Events newer than {@code id}, or null when the ring no longer reaches back that far.
+     */
+    private synchronized List<AppointmentEventDto> eventsAfter(long id) {
+        // An id at or past nextId was issued before a restart
+        if (id >= nextId || id + 1 < Math.max(1, nextId - ring.length)) {
+            return null;
+        }
+        List<AppointmentEventDto> events = new ArrayList<>();
+        for (long seq = id + 1; seq < nextId; seq++) {
+            events.add(ring[(int) (seq % ring.length)]);
+        }
+        return events;
+    }
+
+    private static Long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private interface Delivery {
+        void run() throws IOException;
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<AppointmentEventDto> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final AtomicBoolean resyncPending = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile long sendingSince;
+        private Thread thread;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(AppointmentEventDto event) {
+            if (!queue.offer(event)) {
+                resync();
+            }
+        }
+
+        // Drop the backlog: the client reloads everything when it sees the resync event
+        void resync() {
+            resyncPending.set(true);
+            queue.clear();
+            queue.offer(WAKE_UP);
+        }
+
+        synchronized void start() {
+            if (!closed) {
+                thread = Thread.ofVirtual().name("sse-subscriber").start(this::run);
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            subscribers.remove(this);
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        private void run() {
+            try {
+                while (!closed) {
+                    AppointmentEventDto event = queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (resyncPending.getAndSet(false)) {
+                        queue.clear();
+                        if (!deliver(() -> emitter.send(SseEmitter.event().name(RESYNC).data("")))) {
+                            return;
+                        }
+                    } else if (event == null) {
+                        // Keeps idle connections open through proxies that cut silent streams
+                        if (!deliver(() -> emitter.send(SseEmitter.event().comment("keep-alive")))) {
+                            return;
+                        }
+                    } else if (event != WAKE_UP) {
+                        if (!deliver(() -> emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.id()))
+                                .name(event.type().name())
+                                .data(event)))) {
+                            return;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+                emitter.complete();
+            }
+        }
+
+        private boolean deliver(Delivery delivery) {
+            sendingSince = System.currentTimeMillis();
+            try {
+                delivery.run();
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping SSE subscriber", e);
+                return false;
+            } finally {
+                sendingSince = 0;
+            }
+        }
+    }
+}
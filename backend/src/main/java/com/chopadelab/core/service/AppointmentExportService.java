@@ -0,0 +1,160 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.AppointmentDto;
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.repository.AppointmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Month-end export of appointments with their tests. Rows come off a forward-only cursor as
+ * scalar tuples and are written one appointment at a time, so memory stays flat no matter how
+ * many appointments match.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentExportService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "id,appointmentTime,patientId,patientName,patientAge,patientGender,"
+            + "patientMobile,homeVisit,collectionAddress,status,totalAmount,reportUrl,testCount,tests";
+
+    // The cursor only stays open inside a transaction (PostgreSQL ignores the fetch size otherwise)
+    @Transactional(readOnly = true)
+    public long export(Format format, AppointmentStatus status, LocalDateTime from, LocalDateTime to,
+            Boolean homeVisit, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long written = 0;
+        try (Stream<AppointmentRepository.ExportRow> rows = appointmentRepository.streamForExport(status, from, to,
+                homeVisit)) {
+            Iterator<AppointmentRepository.ExportRow> iterator = rows.iterator();
+            AppointmentRepository.ExportRow head = null;
+            List<AppointmentDto.TestLine> tests = new ArrayList<>();
+            while (iterator.hasNext()) {
+                AppointmentRepository.ExportRow row = iterator.next();
+                if (head != null && !head.getId().equals(row.getId())) {
+                    write(format, writer, toDto(head, tests));
+                    written++;
+                    tests = new ArrayList<>();
+                }
+                head = row;
+                if (row.getTestId() != null) {
+                    tests.add(new AppointmentDto.TestLine(row.getTestId(), row.getTestName(), row.getTestPrice(),
+                            row.getTestCategory()));
+                }
+            }
+            if (head != null) {
+                write(format, writer, toDto(head, tests));
+                written++;
+            }
+        }
+        writer.flush();
+        return written;
+    }
+
+    private void write(Format format, Writer writer, AppointmentDto appointment) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(appointment));
+        } else {
+            writer.write(toCsv(appointment));
+        }
+        writer.write('\n');
+    }
+
+    private static AppointmentDto toDto(AppointmentRepository.ExportRow row, List<AppointmentDto.TestLine> tests) {
+        return new AppointmentDto(
+                row.getId(),
+                row.getPatientId(),
+                row.getAppointmentTime(),
+                row.getPatientName(),
+                row.getPatientAge(),
+                row.getPatientGender(),
+                row.getPatientMobile(),
+                Boolean.TRUE.equals(row.getHomeVisit()),
+                row.getCollectionAddress(),
+                row.getTotalAmount(),
+                row.getStatus(),
+                row.getReportUrl(),
+                row.getVersion(),
+                tests);
+    }
+
+    private static String toCsv(AppointmentDto a) {
+        String tests = a.tests().stream()
+                .map(t -> t.testName() + " (" + t.price() + ")")
+                .collect(Collectors.joining("; "));
+        return String.join(",",
+                csv(a.id()), csv(a.appointmentTime()), csv(a.patientId()), csv(a.patientName()),
+                csv(a.patientAge()), csv(a.patientGender()), csv(a.patientMobile()), csv(a.homeVisit()),
+                csv(a.collectionAddress()), csv(a.status()), csv(a.totalAmount()), csv(a.reportUrl()),
+                csv(a.tests().size()), csv(tests));
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Patient-entered text must not be evaluated as a formula when opened in a spreadsheet
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
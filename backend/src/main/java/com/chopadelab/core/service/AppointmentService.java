@@ -1,19 +1,37 @@
 package com.chopadelab.core.service;
 
+import com.chopadelab.core.dto.AppointmentDto;
+import com.chopadelab.core.dto.AppointmentPageDto;
 import com.chopadelab.core.dto.BookAppointmentRequest;
+import com.chopadelab.core.dto.BulkStatusUpdateRequest;
+import com.chopadelab.core.dto.BulkStatusUpdateResultDto;
 import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentLine;
+import com.chopadelab.core.entity.AppointmentStatus;
 import com.chopadelab.core.entity.LabTest;
 import com.chopadelab.core.entity.User;
+import com.chopadelab.core.exception.ConcurrentUpdateException;
 import com.chopadelab.core.repository.AppointmentRepository;
 import com.chopadelab.core.repository.LabTestRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -21,25 +39,104 @@ public class AppointmentService {
 
     private final AppointmentRepository appointmentRepository;
     private final LabTestRepository labTestRepository;
+    private final PricingEngine pricingEngine;
+    private final SlotCapacityService slotCapacityService;
+    private final AppointmentStatusCounters statusCounters;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+
+    public static final int MAX_BULK_SIZE = 1000;
+    public static final int MAX_UPDATE_ATTEMPTS = 3;
 
     @Transactional
-    public Appointment bookAppointment(BookAppointmentRequest request, User patient) {
-        Set<LabTest> tests = new HashSet<>(labTestRepository.findAllById(request.getTestIds()));
+    public AppointmentDto bookAppointment(BookAppointmentRequest request, User patient) {
+        PricingEngine.Quote quote = priceAndValidate(request);
+        slotCapacityService.reserve(request.getAppointmentTime(), request.isHomeVisit());
 
-        if (tests.isEmpty()) {
-            throw new RuntimeException("No valid tests selected");
+        Appointment saved = appointmentRepository.save(newAppointment(request, patient, quote));
+        statusCounters.recordTransition(null, AppointmentStatus.PENDING, 1);
+        rollupService.recordBooked(List.of(saved.getId()));
+        publish(AppointmentChangedEvent.Type.BOOKED, saved.getId(), saved.getStatus());
+        return toDto(saved, quote);
+    }
+
+    /**
+     * Book a whole list (e.g. a corporate health camp) in one transaction: everything is
+     * validated and priced before the first write, slots are reserved once per slot, and
+     * the rows are inserted with JDBC batching.
+     */
+    @Transactional
+    public List<AppointmentDto> bookAppointments(List<BookAppointmentRequest> requests, User patient) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Bulk booking needs between 1 and " + MAX_BULK_SIZE + " appointments");
+        }
+
+        List<PricingEngine.Quote> quotes = new ArrayList<>(requests.size());
+        // Slots are reserved in (slotStart, homeVisit) order so overlapping bulk bookings lock rows in the same order
+        Map<SlotDemand, Integer> demand = new TreeMap<>(SlotDemand.ORDER);
+        for (int i = 0; i < requests.size(); i++) {
+            BookAppointmentRequest request = requests.get(i);
+            try {
+                quotes.add(priceAndValidate(request));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Appointment #" + (i + 1) + ": " + e.getMessage(), e);
+            }
+            SlotDemand slot = new SlotDemand(slotCapacityService.slotStartOf(request.getAppointmentTime()),
+                    request.isHomeVisit());
+            demand.merge(slot, 1, Integer::sum);
+        }
+
+        demand.forEach((slot, places) -> slotCapacityService.reserve(slot.slotStart(), slot.homeVisit(), places));
+
+        List<Appointment> appointments = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            appointments.add(newAppointment(requests.get(i), patient, quotes.get(i)));
+        }
+        // Sequence ids let Hibernate batch these inserts and their appointment_tests rows at flush
+        List<Appointment> saved = appointmentRepository.saveAll(appointments);
+        statusCounters.recordTransition(null, AppointmentStatus.PENDING, saved.size());
+        rollupService.recordBooked(saved.stream().map(Appointment::getId).toList());
+
+        List<AppointmentDto> result = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            publish(AppointmentChangedEvent.Type.BOOKED, saved.get(i).getId(), saved.get(i).getStatus());
+            result.add(toDto(saved.get(i), quotes.get(i)));
         }
+        return result;
+    }
+
+    private record SlotDemand(LocalDateTime slotStart, boolean homeVisit) {
 
-        BigDecimal testsTotal = tests.stream()
-                .map(LabTest::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        static final Comparator<SlotDemand> ORDER = Comparator.comparing(SlotDemand::slotStart)
+                .thenComparing(SlotDemand::homeVisit);
+    }
+
+    private PricingEngine.Quote priceAndValidate(BookAppointmentRequest request) {
+        PricingEngine.Quote quote = pricingEngine.quote(request.getTestIds(), request.isHomeVisit());
+
+        if (quote.lines().isEmpty()) {
+            throw new RuntimeException("No valid tests selected");
+        }
+        if (request.getAppointmentTime() == null) {
+            throw new IllegalArgumentException("Appointment time is required");
+        }
+        return quote;
+    }
 
-        BigDecimal homeVisitCharge = request.isHomeVisit() ? new BigDecimal("100.00") : BigDecimal.ZERO;
-        BigDecimal totalAmount = testsTotal.add(homeVisitCharge);
+    private Appointment newAppointment(BookAppointmentRequest request, User patient, PricingEngine.Quote quote) {
+        // References are enough for the appointment_tests join rows; no SELECT per test
+        Set<LabTest> tests = new HashSet<>();
+        Set<AppointmentLine> lines = new HashSet<>();
+        for (PricingEngine.Line line : quote.lines()) {
+            tests.add(labTestRepository.getReferenceById(line.id()));
+            lines.add(new AppointmentLine(line.id(), line.price(), line.category()));
+        }
 
-        Appointment appointment = Appointment.builder()
+        return Appointment.builder()
                 .patient(patient)
                 .tests(tests)
+                .lines(lines)
                 .appointmentTime(request.getAppointmentTime())
                 // Fallback to User profile if specific patient details are not provided (e.g.
                 // SELF booking)
@@ -50,30 +147,238 @@ public class AppointmentService {
                         request.getPatientMobile() != null ? request.getPatientMobile() : patient.getPhoneNumber())
                 .isHomeVisit(request.isHomeVisit())
                 .collectionAddress(request.getCollectionAddress())
-                .totalAmount(totalAmount)
-                .status("PENDING")
+                .totalAmount(quote.total())
+                .priceTableVersion(quote.priceTableVersion())
+                .status(AppointmentStatus.PENDING)
                 .build();
+    }
+
+    private AppointmentDto toDto(Appointment appointment, PricingEngine.Quote quote) {
+        return AppointmentDto.from(appointment, quote.lines().stream()
+                .map(AppointmentDto.TestLine::from)
+                .toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<AppointmentDto> getUserHistory(User patient) {
+        return appointmentRepository.findByPatient(patient).stream()
+                .map(AppointmentDto::from)
+                .toList();
+    }
 
-        return appointmentRepository.save(appointment);
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Keyset page for the admin listing, newest first. The cursor is the id of the last row
+     * of the previous page, so each page costs the same regardless of table size.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentPageDto getAppointmentsPage(String cursor, int limit, AppointmentStatus status,
+            LocalDateTime from, LocalDateTime to, Boolean homeVisit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Long afterId = parseCursor(cursor);
+
+        // Fetch one extra id to know whether another page exists
+        List<Long> ids = appointmentRepository.findPageIds(afterId, status, from, to, homeVisit,
+                PageRequest.of(0, size + 1));
+
+        String nextCursor = null;
+        if (ids.size() > size) {
+            ids = ids.subList(0, size);
+            nextCursor = String.valueOf(ids.get(size - 1));
+        }
+        if (ids.isEmpty()) {
+            return new AppointmentPageDto(List.of(), null);
+        }
+
+        // Second (and last) statement: the rows with their tests
+        List<AppointmentDto> items = appointmentRepository.findWithTestsByIdIn(ids).stream()
+                .map(AppointmentDto::from)
+                .toList();
+        return new AppointmentPageDto(items, nextCursor);
     }
 
-    public List<Appointment> getUserHistory(User patient) {
-        return appointmentRepository.findByPatient(patient);
+    private Long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
 
-    public List<Appointment> getAllAppointments() {
-        return appointmentRepository.findAll();
+    public AppointmentDto updateStatus(Long id, AppointmentStatus status, String reportUrl) {
+        return updateStatus(id, status, reportUrl, null);
     }
 
-    public Appointment updateStatus(Long id, String status, String reportUrl) {
+    /**
+     * Apply a status change and/or report URL. With {@code expectedVersion} (If-Match) any
+     * intervening change is a conflict. Without it the update is re-applied to the fresh row
+     * when a concurrent writer wins the version check, since a legal transition plus a report
+     * URL commutes with other edits; it becomes a conflict only if the transition no longer
+     * applies or the retries run out.
+     */
+    public AppointmentDto updateStatus(Long id, AppointmentStatus status, String reportUrl, Long expectedVersion) {
+        return updateStatus(id, status, reportUrl, expectedVersion, () -> {
+        });
+    }
+
+    /**
+     * Point the appointment at an uploaded report. {@code writeReport} (the report's own row)
+     * runs in the same transaction, so the file record and the reportUrl commit together or
+     * not at all; it is re-run on retry and must be idempotent.
+     */
+    public AppointmentDto attachReport(Long id, String reportUrl, Runnable writeReport) {
+        return updateStatus(id, null, reportUrl, null, writeReport);
+    }
+
+    private AppointmentDto updateStatus(Long id, AppointmentStatus status, String reportUrl, Long expectedVersion,
+            Runnable alsoInTransaction) {
+        for (int attempt = 1; ; attempt++) {
+            boolean retry = attempt > 1;
+            try {
+                return transactionTemplate.execute(tx -> {
+                    alsoInTransaction.run();
+                    return applyStatusUpdate(id, status, reportUrl, expectedVersion, retry);
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null || attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw transactionTemplate.execute(tx -> conflict(findAppointment(id),
+                            "Appointment was modified concurrently"));
+                }
+            }
+        }
+    }
+
+    private AppointmentDto applyStatusUpdate(Long id, AppointmentStatus status, String reportUrl,
+            Long expectedVersion, boolean retry) {
+        Appointment appointment = findAppointment(id);
+        if (expectedVersion != null && !expectedVersion.equals(appointment.getVersion())) {
+            throw conflict(appointment, "Appointment was modified since it was read");
+        }
+        AppointmentStatus current = appointment.getStatus();
+        if (status != null && status != current) {
+            if (!canTransition(current, status)) {
+                if (retry) {
+                    throw conflict(appointment, "Appointment moved to " + current + " concurrently");
+                }
+                throw new IllegalArgumentException("Cannot change status from " + current + " to " + status);
+            }
+            if (status == AppointmentStatus.CANCELLED) {
+                slotCapacityService.release(appointment.getAppointmentTime(), appointment.isHomeVisit());
+            }
+            appointment.setStatus(status);
+            statusCounters.recordTransition(current, status, 1);
+            rollupService.recordTransition(List.of(id), status);
+            publish(AppointmentChangedEvent.Type.STATUS_CHANGED, id, status);
+        }
+        if (reportUrl != null) {
+            appointment.setReportUrl(reportUrl);
+            publish(AppointmentChangedEvent.Type.REPORT_UPLOADED, id, appointment.getStatus());
+        }
+        // Flush now so a lost version check surfaces here and the DTO carries the new version
+        return AppointmentDto.from(appointmentRepository.saveAndFlush(appointment));
+    }
+
+    private Appointment findAppointment(Long id) {
         return appointmentRepository.findById(id)
-                .map(appointment -> {
-                    if (status != null)
-                        appointment.setStatus(status);
-                    if (reportUrl != null)
-                        appointment.setReportUrl(reportUrl);
-                    return appointmentRepository.save(appointment);
-                })
                 .orElseThrow(() -> new RuntimeException("Appointment not found with id " + id));
     }
+
+    private static ConcurrentUpdateException conflict(Appointment appointment, String message) {
+        return new ConcurrentUpdateException(message, AppointmentDto.from(appointment), appointment.getVersion());
+    }
+
+    /**
+     * Move many appointments to one status with a single set-based UPDATE, reporting the
+     * outcome per id instead of failing the whole request. The rows are read with a row lock,
+     * so the statuses checked here are the ones the UPDATE moves them from, and slots, counters
+     * and rollups are adjusted for exactly the rows that moved.
+     */
+    @Transactional
+    public BulkStatusUpdateResultDto bulkUpdateStatus(BulkStatusUpdateRequest request) {
+        AppointmentStatus target = request.getStatus();
+        if (target == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        List<Long> ids = resolveBulkIds(request);
+
+        Map<Long, AppointmentRepository.StatusView> views = new HashMap<>();
+        for (AppointmentRepository.StatusView view : appointmentRepository.lockStatusViewsByIdIn(ids)) {
+            views.put(view.getId(), view);
+        }
+
+        Map<Long, BulkStatusUpdateResultDto.Outcome> outcomes = new LinkedHashMap<>();
+        Map<Long, AppointmentRepository.StatusView> eligible = new LinkedHashMap<>();
+        for (Long id : ids) {
+            AppointmentRepository.StatusView view = views.get(id);
+            if (view == null) {
+                outcomes.put(id, BulkStatusUpdateResultDto.Outcome.NOT_FOUND);
+            } else if (target == view.getStatus()) {
+                outcomes.put(id, BulkStatusUpdateResultDto.Outcome.UNCHANGED);
+            } else if (!canTransition(view.getStatus(), target)) {
+                outcomes.put(id, BulkStatusUpdateResultDto.Outcome.ILLEGAL_TRANSITION);
+            } else {
+                outcomes.put(id, BulkStatusUpdateResultDto.Outcome.UPDATED);
+                eligible.put(id, view);
+            }
+        }
+
+        int updated = 0;
+        if (!eligible.isEmpty()) {
+            updated = appointmentRepository.updateStatusByIdIn(eligible.keySet(), target);
+            if (target == AppointmentStatus.CANCELLED) {
+                releaseSlots(eligible.values());
+            }
+            // HashMap, not EnumMap: legacy rows move from a null status
+            Map<AppointmentStatus, Integer> movedFrom = new HashMap<>();
+            eligible.values().forEach(view -> movedFrom.merge(view.getStatus(), 1, Integer::sum));
+            movedFrom.forEach((from, count) -> statusCounters.recordTransition(from, target, count));
+            rollupService.recordTransition(eligible.keySet(), target);
+            eligible.keySet().forEach(id -> publish(AppointmentChangedEvent.Type.STATUS_CHANGED, id, target));
+        }
+
+        List<BulkStatusUpdateResultDto.Row> rows = new ArrayList<>(outcomes.size());
+        outcomes.forEach((id, outcome) -> rows.add(new BulkStatusUpdateResultDto.Row(id, outcome)));
+        return new BulkStatusUpdateResultDto(target, updated, rows);
+    }
+
+    private List<Long> resolveBulkIds(BulkStatusUpdateRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            if (request.getIds().size() > MAX_BULK_SIZE) {
+                throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " appointments per request");
+            }
+            return request.getIds().stream().distinct().toList();
+        }
+        if (request.getCurrentStatus() == null && request.getFrom() == null && request.getTo() == null
+                && request.getHomeVisit() == null) {
+            throw new IllegalArgumentException("Provide appointment ids or at least one filter");
+        }
+        return appointmentRepository.findPageIds(null, request.getCurrentStatus(), request.getFrom(),
+                request.getTo(), request.getHomeVisit(), PageRequest.of(0, MAX_BULK_SIZE));
+    }
+
+    // Delivered to SSE subscribers only if the surrounding transaction commits
+    private void publish(AppointmentChangedEvent.Type type, Long id, AppointmentStatus status) {
+        eventPublisher.publishEvent(new AppointmentChangedEvent(type, id, status));
+    }
+
+    private void releaseSlots(Collection<AppointmentRepository.StatusView> cancelled) {
+        Map<SlotDemand, Integer> places = new HashMap<>();
+        for (AppointmentRepository.StatusView view : cancelled) {
+            if (view.getAppointmentTime() != null) {
+                SlotDemand slot = new SlotDemand(slotCapacityService.slotStartOf(view.getAppointmentTime()),
+                        Boolean.TRUE.equals(view.getHomeVisit()));
+                places.merge(slot, 1, Integer::sum);
+            }
+        }
+        places.forEach((slot, count) -> slotCapacityService.release(slot.slotStart(), slot.homeVisit(), count));
+    }
+
+    // Rows without a status predate the state machine and may move anywhere
+    private static boolean canTransition(AppointmentStatus from, AppointmentStatus to) {
+        return from == null || from.canTransitionTo(to);
+    }
 }
@@ -0,0 +1,92 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live appointment counts per status for the admin dashboard. Seeded from one GROUP BY,
+ * then adjusted after each committed booking or transition; periodically re-seeded so
+ * that changes made outside this instance are picked up.
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentStatusCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentStatusCounters.class);
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Map<AppointmentStatus, LongAdder> counts = new EnumMap<>(AppointmentStatus.class);
+    private volatile boolean seeded;
+
+    {
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            counts.put(status, new LongAdder());
+        }
+    }
+
+    public Map<AppointmentStatus, Long> snapshot() {
+        if (!seeded) {
+            reseed();
+        }
+        Map<AppointmentStatus, Long> result = new EnumMap<>(AppointmentStatus.class);
+        counts.forEach((status, count) -> result.put(status, count.sum()));
+        return result;
+    }
+
+    /**
+     * Record {@code count} appointments moving from {@code from} (null for new bookings)
+     * to {@code to} once the current transaction commits.
+     */
+    public void recordTransition(AppointmentStatus from, AppointmentStatus to, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Runnable apply = () -> {
+            if (from != null) {
+                counts.get(from).add(-count);
+            }
+            counts.get(to).add(count);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.reseed-ms:300000}")
+    public synchronized void reseed() {
+        try {
+            Map<AppointmentStatus, Long> fromDb = new EnumMap<>(AppointmentStatus.class);
+            for (AppointmentRepository.StatusCount row : appointmentRepository.countByStatus()) {
+                if (row.getStatus() != null) {
+                    fromDb.put(row.getStatus(), row.getCount());
+                }
+            }
+            counts.forEach((status, adder) -> {
+                adder.reset();
+                adder.add(fromDb.getOrDefault(status, 0L));
+            });
+            seeded = true;
+        } catch (Exception e) {
+            log.warn("Could not seed appointment status counters", e);
+        }
+    }
+}
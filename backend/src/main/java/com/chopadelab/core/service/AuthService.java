@@ -10,7 +10,11 @@ import com.chopadelab.core.exception.UserAlreadyExistsException;
 import com.chopadelab.core.repository.RoleRepository; // ADDED
 import com.chopadelab.core.repository.UserRepository;
 import com.chopadelab.core.security.JwtService;
+import com.chopadelab.core.security.TokenRevocationStore;
+import com.chopadelab.core.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -21,6 +25,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
@@ -31,6 +40,19 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final UserCache userCache;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationStore revocationStore;
+
+    // Refreshes by the id of the token presented, so that tabs racing to refresh with the same
+    // token all get the one new pair instead of tripping reuse detection
+    private final ConcurrentHashMap<String, RecentRefresh> recentRefreshes = new ConcurrentHashMap<>();
+
+    @Value("${app.security.refresh-reuse-grace-ms:10000}")
+    private long reuseGraceMillis;
+
+    private record RecentRefresh(long at, CompletableFuture<AuthResponse> result) {
+    }
 
     /**
      * Login an existing user.
@@ -42,18 +64,10 @@ public class AuthService {
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            ;
-            String token = jwtService.generateToken(userDetails);
-
-            User user = userRepository.findByUsername(request.getUsername()).orElseThrow();
+            User user = userCache.findByUsername(request.getUsername()).orElseThrow();
 
-            UserDto userDto = new UserDto(
-                    user.getId(),
-                    user.getUsername(),
-                    user.isEnabled(),
-                    user.getRoles().stream().map(Role::getName).toList());
-
-            return new AuthResponse(token, userDto);
+            JwtService.TokenPair tokens = jwtService.issueTokens(userDetails, user.getId());
+            return new AuthResponse(tokens.accessToken(), tokens.refreshToken(), toUserDto(user));
         } catch (BadCredentialsException e) {
             throw new InvalidCredentialsException("Invalid username or password", e);
         }
@@ -79,22 +93,110 @@ public class AuthService {
                 .build();
 
         userRepository.save(user);
+        userCache.invalidate(user.getUsername());
+
+        // The password was just hashed above; verifying it again would only repeat the BCrypt work
+        UserDetails userDetails = userDetailsService.toUserDetails(user);
+        JwtService.TokenPair tokens = jwtService.issueTokens(userDetails, user.getId());
+        return new AuthResponse(tokens.accessToken(), tokens.refreshToken(), toUserDto(user));
+    }
+
+    /**
+     * Exchange a refresh token for a new access/refresh pair in the same session. Each refresh
+     * token works once: presenting one that was already used means it leaked, so the whole
+     * session is revoked. Within app.security.refresh-reuse-grace-ms of its first use, though,
+     * the same token gets the same new pair back (several tabs share one token). The user is
+     * re-read here, so role changes and disabling take effect at the next refresh at the latest.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        VerifiedToken presented = verifyRefreshToken(refreshToken);
+        long familyExpiry = presented.familyExpiration().getTime();
+        if (revocationStore.isRevoked(presented.familyId(), familyExpiry)) {
+            throw new InvalidCredentialsException("Session has been signed out");
+        }
+
+        RecentRefresh mine = new RecentRefresh(System.currentTimeMillis(), new CompletableFuture<>());
+        RecentRefresh earlier = recentRefreshes.putIfAbsent(presented.id(), mine);
+        if (earlier != null && mine.at() - earlier.at() <= reuseGraceMillis) {
+            return awaitEarlier(earlier);
+        }
+        try {
+            AuthResponse response = rotate(presented, familyExpiry);
+            mine.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private AuthResponse rotate(VerifiedToken presented, long familyExpiry) {
+        if (!revocationStore.revoke(presented.id(), presented.expiration().getTime())) {
+            revocationStore.revoke(presented.familyId(), familyExpiry);
+            throw new InvalidCredentialsException("Refresh token was already used; session signed out");
+        }
+
+        User user = userCache.findByUsername(presented.subject())
+                .filter(User::isEnabled)
+                .orElseThrow(() -> new InvalidCredentialsException("Account is no longer active"));
+        JwtService.TokenPair tokens = jwtService.rotateTokens(userDetailsService.toUserDetails(user), user.getId(),
+                presented.familyId(), presented.familyExpiration());
+        return new AuthResponse(tokens.accessToken(), tokens.refreshToken(), toUserDto(user));
+    }
+
+    private AuthResponse awaitEarlier(RecentRefresh earlier) {
+        try {
+            return earlier.result().get(reuseGraceMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new InvalidCredentialsException("Session refresh is still in progress, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidCredentialsException("Session refresh was interrupted, please retry");
+        }
+    }
+
+    // Past the grace window a reused token is treated as leaked again
+    @Scheduled(fixedDelayString = "${app.security.refresh-reuse-grace-ms:10000}")
+    public void dropExpiredRefreshes() {
+        long oldest = System.currentTimeMillis() - reuseGraceMillis;
+        recentRefreshes.values().removeIf(refresh -> refresh.at() < oldest);
+    }
 
-        // Authenticate after registration
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+    /**
+     * Sign out the session the refresh token belongs to; its access tokens stop working at once.
+     */
+    public void logout(String refreshToken) {
+        VerifiedToken presented = verifyRefreshToken(refreshToken);
+        revocationStore.revoke(presented.familyId(), presented.familyExpiration().getTime());
+    }
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        ;
-        String token = jwtService.generateToken(userDetails);
+    private VerifiedToken verifyRefreshToken(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidCredentialsException("Refresh token is required");
+        }
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verify(refreshToken);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCredentialsException("Invalid or expired refresh token", e);
+        }
+        if (!verified.isRefreshToken() || verified.id() == null || verified.familyId() == null
+                || verified.familyExpiration() == null) {
+            throw new InvalidCredentialsException("Not a refresh token");
+        }
+        return verified;
+    }
 
-        UserDto userDto = new UserDto(
+    private static UserDto toUserDto(User user) {
+        return new UserDto(
                 user.getId(),
                 user.getUsername(),
                 user.isEnabled(),
                 user.getRoles().stream().map(Role::getName).toList());
-
-        return new AuthResponse(token, userDto);
     }
 }
@@ -0,0 +1,144 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.exception.IdempotencyConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, expiring store of results keyed by the client's Idempotency-Key (scoped per user).
+ * The first request runs the action; replays get the stored result, and duplicates that arrive
+ * while it is still running wait for it. Failures are not stored, so a retry after an error
+ * runs again.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Autowired
+    public IdempotencyStore(@Value("${app.idempotency.max-size:10000}") int maxSize,
+            @Value("${app.idempotency.ttl-ms:86400000}") long ttlMillis,
+            @Value("${app.idempotency.wait-ms:15000}") long waitMillis) {
+        this(maxSize, ttlMillis, waitMillis, System::currentTimeMillis);
+    }
+
+    IdempotencyStore(int maxSize, long ttlMillis, long waitMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.waitMillis = waitMillis;
+        this.clock = clock;
+    }
+
+    private record Key(String scope, String idempotencyKey) {
+    }
+
+    private static final class Entry {
+        private final Object fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        // In-flight entries never expire and are never evicted
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Entry(Object fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public record Outcome<T>(T value, boolean replayed) {
+    }
+
+    /**
+     * Run {@code action} once per (scope, key). {@code fingerprint} identifies the request
+     * body; reusing a key for a different request is rejected.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String scope, String idempotencyKey, Object fingerprint, Supplier<T> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        Key key = new Key(scope, idempotencyKey);
+        Entry mine = new Entry(fingerprint);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAt <= clock.getAsLong()) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!Objects.equals(existing.fingerprint, fingerprint)) {
+                throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+            }
+            return new Outcome<>((T) await(existing), true);
+        }
+        if (entries.size() > maxSize) {
+            sweep(clock.getAsLong());
+        }
+
+        try {
+            T value = action.get();
+            mine.expiresAt = clock.getAsLong() + ttlMillis;
+            mine.result.complete(value);
+            return new Outcome<>(value, false);
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The original request failed: report the same error to its duplicates
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress");
+        }
+    }
+
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(e -> e.expiresAt <= now);
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                if (it.next().getValue().result.isDone()) {
+                    it.remove();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
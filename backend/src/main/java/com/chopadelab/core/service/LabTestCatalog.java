@@ -0,0 +1,73 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.repository.LabTestRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Read-through snapshot of the active lab test catalog. The list, its pre-serialized JSON and
+ * a strong ETag are built together and swapped in atomically after every committed change,
+ * so GET /api/tests never touches the database or Jackson on the hot path.
+ */
+@Component
+@RequiredArgsConstructor
+public class LabTestCatalog {
+
+    private final LabTestRepository labTestRepository;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+
+    public record Snapshot(List<LabTest> tests, byte[] json, String etag) {
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Read and swap under one lock: rebuilds are serialized, so the last one installed is also
+    // the last one that read the table, and an older read can never overwrite a newer snapshot
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(LabTestCatalogChangedEvent event) {
+        snapshot = build();
+    }
+
+    private Snapshot build() {
+        List<LabTest> tests = List.copyOf(labTestRepository.findByActiveTrue());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(tests);
+            return new Snapshot(tests, json, etagOf(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize lab test catalog", e);
+        }
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.chopadelab.core.service;
+
+/**
+ * Published by {@link LabTestService} whenever a lab test is created, updated or deleted.
+ * Listeners rebuild their in-memory views of the catalog after the change commits.
+ */
+public record LabTestCatalogChangedEvent(Long testId) {
+}
@@ -0,0 +1,340 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.LabTestImportResultDto;
+import com.chopadelab.core.dto.LabTestImportResultDto.Action;
+import com.chopadelab.core.dto.LabTestImportResultDto.Change;
+import com.chopadelab.core.dto.LabTestImportResultDto.FieldChange;
+import com.chopadelab.core.dto.LabTestImportResultDto.RowError;
+import com.chopadelab.core.repository.LabTestRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bulk create/update of the lab test catalog from a CSV price list, keyed on testName.
+ * <p>
+ * The file is parsed one record at a time and each valid row is diffed against the current
+ * catalog; only new or changed rows are upserted, in JDBC batches. Invalid rows are reported
+ * with their line number and skipped, the rest of the file still applies. Memory grows with
+ * the catalog, never with the file. Header: {@code testName,price[,category][,description][,active]}
+ * in any order; a column left out keeps the existing value.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LabTestImportService {
+
+    public static final int MAX_ROWS = 50_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED = 1_000;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    // Only touches the row when something actually differs, so re-importing a file is a no-op
+    private static final String UPSERT_SQL = """
+            insert into lab_tests (test_name, price, category, description, active, version)
+            values (?, ?, ?, ?, ?, 0)
+            on conflict (test_name) do update
+            set price = excluded.price, category = excluded.category, description = excluded.description,
+                active = excluded.active, version = lab_tests.version + 1
+            where (lab_tests.price, lab_tests.category, lab_tests.description, lab_tests.active)
+                  is distinct from (excluded.price, excluded.category, excluded.description, excluded.active)
+            """;
+
+    private final LabTestRepository labTestRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private record Values(BigDecimal price, String category, String description, boolean active) {
+    }
+
+    @Transactional
+    public LabTestImportResultDto importCsv(InputStream csv, boolean dryRun) {
+        Map<String, Values> catalog = new HashMap<>();
+        for (LabTestRepository.CatalogRow row : labTestRepository.findCatalogRows()) {
+            catalog.put(row.getTestName(), new Values(row.getPrice(), row.getCategory(), row.getDescription(),
+                    !Boolean.FALSE.equals(row.getActive())));
+        }
+
+        CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        Columns columns = Columns.of(reader.next());
+
+        Map<String, Long> seen = new HashMap<>(); // testName -> line it first appeared on
+        List<RowError> errors = new ArrayList<>();
+        List<Change> changes = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int rows = 0, created = 0, updated = 0, unchanged = 0, failed = 0;
+        boolean truncated = false;
+
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            long line = reader.recordLine();
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue; // blank line
+            }
+            if (++rows > MAX_ROWS) {
+                throw new IllegalArgumentException("CSV has more than " + MAX_ROWS + " rows");
+            }
+
+            String name = columns.get(record, columns.name);
+            try {
+                if (name == null) {
+                    throw new IllegalArgumentException("testName is required");
+                }
+                if (name.length() > MAX_NAME_LENGTH) {
+                    throw new IllegalArgumentException("testName is longer than " + MAX_NAME_LENGTH + " characters");
+                }
+                Long firstLine = seen.putIfAbsent(name, line);
+                if (firstLine != null) {
+                    throw new IllegalArgumentException("Duplicate testName, first seen on line " + firstLine);
+                }
+
+                Values existing = catalog.get(name);
+                Values incoming = columns.values(record, existing);
+                if (existing != null && existing.equals(incoming)) {
+                    unchanged++;
+                    continue;
+                }
+                if (existing == null) {
+                    created++;
+                } else {
+                    updated++;
+                }
+                if (changes.size() < MAX_REPORTED) {
+                    changes.add(new Change(line, name, existing == null ? Action.CREATE : Action.UPDATE,
+                            diff(existing, incoming)));
+                } else {
+                    truncated = true;
+                }
+                if (!dryRun) {
+                    batch.add(new Object[] { name, incoming.price(), incoming.category(), incoming.description(),
+                            incoming.active() });
+                    if (batch.size() == BATCH_SIZE) {
+                        flush(batch);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                failed++;
+                if (errors.size() < MAX_REPORTED) {
+                    errors.add(new RowError(line, name, e.getMessage()));
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        if (!dryRun) {
+            flush(batch);
+            if (created + updated > 0) {
+                eventPublisher.publishEvent(new LabTestCatalogChangedEvent(null));
+            }
+            log.info("Catalog import: {} rows, {} created, {} updated, {} unchanged, {} failed",
+                    rows, created, updated, unchanged, failed);
+        }
+        return new LabTestImportResultDto(dryRun, rows, created, updated, unchanged, failed,
+                errors, changes, truncated);
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            batch.clear();
+        }
+    }
+
+    private static List<FieldChange> diff(Values from, Values to) {
+        List<FieldChange> fields = new ArrayList<>(4);
+        addIfChanged(fields, "price", from == null ? null : from.price().toPlainString(), to.price().toPlainString());
+        addIfChanged(fields, "category", from == null ? null : from.category(), to.category());
+        addIfChanged(fields, "description", from == null ? null : from.description(), to.description());
+        addIfChanged(fields, "active", from == null ? null : String.valueOf(from.active()), String.valueOf(to.active()));
+        return fields;
+    }
+
+    private static void addIfChanged(List<FieldChange> fields, String field, String from, String to) {
+        if (!Objects.equals(from, to)) {
+            fields.add(new FieldChange(field, from, to));
+        }
+    }
+
+    // Header positions; -1 = column not in the file
+    private record Columns(int name, int price, int category, int description, int active) {
+
+        static Columns of(List<String> header) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV is empty");
+            }
+            int name = -1, price = -1, category = -1, description = -1, active = -1;
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "")) {
+                    case "testname", "name", "test" -> name = i;
+                    case "price", "rate", "mrp" -> price = i;
+                    case "category" -> category = i;
+                    case "description" -> description = i;
+                    case "active", "enabled" -> active = i;
+                    default -> {
+                        // Extra columns are ignored
+                    }
+                }
+            }
+            if (name < 0 || price < 0) {
+                throw new IllegalArgumentException("CSV header must contain testName and price columns");
+            }
+            return new Columns(name, price, category, description, active);
+        }
+
+        // Trimmed cell, null when missing or empty
+        String get(List<String> record, int column) {
+            if (column < 0 || column >= record.size()) {
+                return null;
+            }
+            String value = record.get(column).strip();
+            return value.isEmpty() ? null : value;
+        }
+
+        Values values(List<String> record, Values existing) {
+            BigDecimal price = parsePrice(get(record, this.price));
+            String category = this.category < 0 && existing != null ? existing.category() : get(record, this.category);
+            String description = this.description < 0 && existing != null
+                    ? existing.description() : get(record, this.description);
+            String activeCell = get(record, this.active);
+            boolean active = activeCell != null ? parseBoolean(activeCell) : existing == null || existing.active();
+            return new Values(price, category, description, active);
+        }
+
+        private static BigDecimal parsePrice(String cell) {
+            if (cell == null) {
+                throw new IllegalArgumentException("price is required");
+            }
+            BigDecimal price;
+            try {
+                // Price lists often carry a currency sign or thousands separators
+                price = new BigDecimal(cell.replaceAll("[₹$,\\s]", "").replaceFirst("(?i)^(rs\\.?|inr)", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("price is not a number: " + cell);
+            }
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException("price must not be negative");
+            }
+            if (price.stripTrailingZeros().scale() > 2) {
+                throw new IllegalArgumentException("price has more than 2 decimal places: " + cell);
+            }
+            return price.setScale(2);
+        }
+
+        private static boolean parseBoolean(String cell) {
+            return switch (cell.toLowerCase(Locale.ROOT)) {
+                case "true", "yes", "y", "1" -> true;
+                case "false", "no", "n", "0" -> false;
+                default -> throw new IllegalArgumentException("active must be true/false: " + cell);
+            };
+        }
+    }
+
+    /**
+     * RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+     * Reads one record at a time from a buffered stream.
+     */
+    static final class CsvRecordReader {
+
+        private final Reader in;
+        private long line = 1;
+        private long recordLine;
+        private int pending = -2; // -2 = nothing pushed back
+
+        CsvRecordReader(Reader in) {
+            this.in = new BufferedReader(in);
+        }
+
+        // Line on which the record last returned by next() started
+        long recordLine() {
+            return recordLine;
+        }
+
+        List<String> next() {
+            int c = read();
+            if (c == 0xFEFF && line == 1) {
+                c = read(); // byte order mark from spreadsheet exports
+            }
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int after = read();
+                        if (after == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = after;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int after = read();
+                        if (after != '\n') {
+                            pending = after;
+                        }
+                    }
+                    if (c != -1) {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            try {
+                return in.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.LabTest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fuzzy search over the active catalog (name, category, description), built from the
+ * {@link LabTestCatalog} snapshot and swapped in whenever the snapshot changes.
+ * <p>
+ * Terms live in one sorted array, so a prefix is a binary-searched range (a flattened trie).
+ * Each term has a postings list of documents with the best field weight it appears in, and
+ * trigrams point back at terms so misspellings find candidates for a bounded edit-distance
+ * check. Query words are also expanded through a small synonym/abbreviation table, and
+ * multi-word test names are indexed under their initials ("Liver Function Test" -> "lft").
+ */
+@Component
+@RequiredArgsConstructor
+public class LabTestSearchIndex {
+
+    public static final int MAX_RESULTS = 50;
+
+    // Field weights: a hit in the name beats one in the category, which beats the description
+    private static final int NAME = 3;
+    private static final int CATEGORY = 2;
+    private static final int DESCRIPTION = 1;
+
+    // Score multipliers per kind of match
+    private static final int EXACT = 4;
+    private static final int SYNONYM = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+
+    // Everyday words and abbreviations patients type -> terms used in the catalog
+    private static final Map<String, String[]> SYNONYMS = Map.ofEntries(
+            Map.entry("sugar", new String[] { "glucose", "hba1c", "diabetes" }),
+            Map.entry("diabetes", new String[] { "glucose", "hba1c" }),
+            Map.entry("thyroid", new String[] { "tsh", "t3", "t4", "tft" }),
+            Map.entry("cbc", new String[] { "complete", "blood", "count", "hemogram" }),
+            Map.entry("hemogram", new String[] { "cbc", "complete", "blood", "count" }),
+            Map.entry("haemogram", new String[] { "cbc", "hemogram" }),
+            Map.entry("lft", new String[] { "liver", "function" }),
+            Map.entry("liver", new String[] { "lft" }),
+            Map.entry("kft", new String[] { "kidney", "renal", "function", "rft" }),
+            Map.entry("rft", new String[] { "kidney", "renal", "function", "kft" }),
+            Map.entry("kidney", new String[] { "kft", "rft", "renal", "creatinine" }),
+            Map.entry("cholesterol", new String[] { "lipid" }),
+            Map.entry("lipid", new String[] { "cholesterol" }),
+            Map.entry("urine", new String[] { "urinalysis" }),
+            Map.entry("vitamin", new String[] { "vit" }),
+            Map.entry("vit", new String[] { "vitamin" }));
+
+    private final LabTestCatalog labTestCatalog;
+
+    private volatile Index index;
+
+    public List<LabTest> search(String query, int limit) {
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return List.of();
+        }
+        return current().search(words, Math.max(1, Math.min(limit, MAX_RESULTS)));
+    }
+
+    // Rebuilt at most once per catalog snapshot; the snapshot itself is swapped after each commit
+    private Index current() {
+        LabTestCatalog.Snapshot snapshot = labTestCatalog.snapshot();
+        Index current = index;
+        if (current == null || current.source != snapshot) {
+            current = new Index(snapshot);
+            index = current;
+        }
+        return current;
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Edit distance (insertions, deletions, substitutions, adjacent swaps) if it is at most
+     * {@code max}, otherwise {@code max + 1}. Gives up as soon as a whole row exceeds the bound.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] prevPrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, row[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prevPrev[j - 2] + 1);
+                }
+                row[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = row;
+            row = recycled;
+        }
+        return Math.min(prev[b.length()], max + 1);
+    }
+
+    private static int maxEdits(String word) {
+        return word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+    }
+
+    private static final class Index {
+
+        private final LabTestCatalog.Snapshot source;
+        private final List<LabTest> docs;
+        private final String[] terms;        // sorted
+        private final int[][] postingDocs;   // per term, ascending doc numbers
+        private final int[][] postingWeights; // per term, field weight aligned with postingDocs
+        private final Map<String, int[]> trigrams; // trigram -> term numbers
+
+        Index(LabTestCatalog.Snapshot source) {
+            this.source = source;
+            this.docs = source.tests();
+
+            // term -> (doc -> best field weight); TreeMap keeps terms sorted for prefix ranges
+            TreeMap<String, TreeMap<Integer, Integer>> postings = new TreeMap<>();
+            for (int doc = 0; doc < docs.size(); doc++) {
+                LabTest test = docs.get(doc);
+                String[] nameWords = tokenize(test.getTestName());
+                add(postings, nameWords, doc, NAME);
+                if (nameWords.length > 1) {
+                    StringBuilder initials = new StringBuilder(nameWords.length);
+                    for (String word : nameWords) {
+                        initials.append(word.charAt(0));
+                    }
+                    add(postings, new String[] { initials.toString() }, doc, NAME);
+                }
+                add(postings, tokenize(test.getCategory()), doc, CATEGORY);
+                add(postings, tokenize(test.getDescription()), doc, DESCRIPTION);
+            }
+
+            terms = postings.keySet().toArray(String[]::new);
+            postingDocs = new int[terms.length][];
+            postingWeights = new int[terms.length][];
+            Map<String, List<Integer>> grams = new HashMap<>();
+            int t = 0;
+            for (Map<Integer, Integer> byDoc : postings.values()) {
+                postingDocs[t] = byDoc.keySet().stream().mapToInt(Integer::intValue).toArray();
+                postingWeights[t] = byDoc.values().stream().mapToInt(Integer::intValue).toArray();
+                for (String gram : trigramsOf(terms[t])) {
+                    grams.computeIfAbsent(gram, g -> new ArrayList<>()).add(t);
+                }
+                t++;
+            }
+            trigrams = new HashMap<>(grams.size() * 2);
+            grams.forEach((gram, ids) -> trigrams.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        private static void add(TreeMap<String, TreeMap<Integer, Integer>> postings, String[] words, int doc, int weight) {
+            for (String word : words) {
+                postings.computeIfAbsent(word, w -> new TreeMap<>()).merge(doc, weight, Math::max);
+            }
+        }
+
+        // Padded so that short words and word boundaries still produce grams
+        private static List<String> trigramsOf(String term) {
+            String padded = "^" + term + "$";
+            List<String> grams = new ArrayList<>(padded.length());
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+            return grams;
+        }
+
+        List<LabTest> search(String[] words, int limit) {
+            int[] scores = new int[docs.size()];
+            int[] wordScores = new int[docs.size()];
+            for (String word : words) {
+                Arrays.fill(wordScores, 0);
+                boolean hit = matchPrefix(word, wordScores);
+                String[] synonyms = SYNONYMS.get(word);
+                if (synonyms != null) {
+                    for (String synonym : synonyms) {
+                        hit |= matchExact(synonym, SYNONYM, wordScores);
+                    }
+                }
+                if (!hit) {
+                    matchFuzzy(word, wordScores);
+                }
+                for (int doc = 0; doc < scores.length; doc++) {
+                    scores[doc] += wordScores[doc];
+                }
+            }
+            return top(scores, limit);
+        }
+
+        // Exact term and every term it is a prefix of ("thyro" -> "thyroid", "thyroxine")
+        private boolean matchPrefix(String word, int[] wordScores) {
+            int from = Arrays.binarySearch(terms, word);
+            boolean exact = from >= 0;
+            if (!exact) {
+                from = -from - 1;
+            } else {
+                score(from, EXACT, wordScores);
+                from++;
+            }
+            boolean hit = exact;
+            for (int t = from; t < terms.length && terms[t].startsWith(word); t++) {
+                score(t, PREFIX, wordScores);
+                hit = true;
+            }
+            return hit;
+        }
+
+        private boolean matchExact(String term, int multiplier, int[] wordScores) {
+            int t = Arrays.binarySearch(terms, term);
+            if (t < 0) {
+                return false;
+            }
+            score(t, multiplier, wordScores);
+            return true;
+        }
+
+        // Candidates share at least one trigram with the word; the edit distance decides
+        private void matchFuzzy(String word, int[] wordScores) {
+            int max = maxEdits(word);
+            if (max == 0) {
+                return;
+            }
+            int[] shared = new int[terms.length];
+            for (String gram : trigramsOf(word)) {
+                int[] ids = trigrams.get(gram);
+                if (ids != null) {
+                    for (int t : ids) {
+                        shared[t]++;
+                    }
+                }
+            }
+            for (int t = 0; t < terms.length; t++) {
+                if (shared[t] > 0 && boundedDistance(word, terms[t], max) <= max) {
+                    score(t, FUZZY, wordScores);
+                }
+            }
+        }
+
+        private void score(int term, int multiplier, int[] wordScores) {
+            int[] termDocs = postingDocs[term];
+            int[] weights = postingWeights[term];
+            for (int i = 0; i < termDocs.length; i++) {
+                wordScores[termDocs[i]] = Math.max(wordScores[termDocs[i]], weights[i] * multiplier);
+            }
+        }
+
+        // Highest score first, ties by test name
+        private List<LabTest> top(int[] scores, int limit) {
+            List<Integer> hits = new ArrayList<>();
+            for (int doc = 0; doc < scores.length; doc++) {
+                if (scores[doc] > 0) {
+                    hits.add(doc);
+                }
+            }
+            hits.sort((a, b) -> scores[a] != scores[b]
+                    ? Integer.compare(scores[b], scores[a])
+                    : docs.get(a).getTestName().compareToIgnoreCase(docs.get(b).getTestName()));
+            List<LabTest> results = new ArrayList<>(Math.min(limit, hits.size()));
+            for (int i = 0; i < hits.size() && i < limit; i++) {
+                results.add(docs.get(hits.get(i)));
+            }
+            return results;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.chopadelab.core.service;
 
 import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.exception.ConcurrentUpdateException;
 import com.chopadelab.core.repository.LabTestRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -12,33 +17,60 @@ import java.util.List;
 public class LabTestService {
 
     private final LabTestRepository labTestRepository;
+    private final LabTestCatalog labTestCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     public List<LabTest> getAllActiveTests() {
-        return labTestRepository.findByActiveTrue();
+        return labTestCatalog.snapshot().tests();
     }
 
     public List<LabTest> getAllTests() {
         return labTestRepository.findAll();
     }
 
+    @Transactional
     public LabTest createTest(LabTest labTest) {
-        return labTestRepository.save(labTest);
+        LabTest saved = labTestRepository.save(labTest);
+        eventPublisher.publishEvent(new LabTestCatalogChangedEvent(saved.getId()));
+        return saved;
     }
 
-    public LabTest updateTest(Long id, LabTest updatedTest) {
+    /**
+     * Replace a test's editable fields. A full replacement does not commute with other edits,
+     * so a stale {@code expectedVersion} or a concurrent writer is reported as a conflict
+     * carrying the current test.
+     */
+    public LabTest updateTest(Long id, LabTest updatedTest, Long expectedVersion) {
+        try {
+            return transactionTemplate.execute(tx -> {
+                LabTest test = findTest(id);
+                if (expectedVersion != null && !expectedVersion.equals(test.getVersion())) {
+                    throw new ConcurrentUpdateException("Test was modified since it was read", test, test.getVersion());
+                }
+                test.setTestName(updatedTest.getTestName());
+                test.setPrice(updatedTest.getPrice());
+                test.setCategory(updatedTest.getCategory());
+                test.setDescription(updatedTest.getDescription());
+                test.setActive(updatedTest.isActive());
+                LabTest saved = labTestRepository.saveAndFlush(test);
+                eventPublisher.publishEvent(new LabTestCatalogChangedEvent(id));
+                return saved;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            LabTest current = transactionTemplate.execute(tx -> findTest(id));
+            throw new ConcurrentUpdateException("Test was modified concurrently", current, current.getVersion());
+        }
+    }
+
+    private LabTest findTest(Long id) {
         return labTestRepository.findById(id)
-                .map(test -> {
-                    test.setTestName(updatedTest.getTestName());
-                    test.setPrice(updatedTest.getPrice());
-                    test.setCategory(updatedTest.getCategory());
-                    test.setDescription(updatedTest.getDescription());
-                    test.setActive(updatedTest.isActive());
-                    return labTestRepository.save(test);
-                })
                 .orElseThrow(() -> new RuntimeException("Test not found with id " + id));
     }
 
+    @Transactional
     public void deleteTest(Long id) {
         labTestRepository.deleteById(id);
+        eventPublisher.publishEvent(new LabTestCatalogChangedEvent(id));
     }
 }
@@ -0,0 +1,179 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.config.PricingProperties;
+import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.repository.LabTestRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prices bookings from an in-memory, versioned price table instead of fetching tests per booking.
+ * The table (catalog prices, category discounts and bundles resolved to test ids) is compiled
+ * once per catalog change and swapped in atomically; quotes record the version they used.
+ */
+@Component
+@RequiredArgsConstructor
+public class PricingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingEngine.class);
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final LabTestRepository labTestRepository;
+    private final PricingProperties properties;
+
+    private volatile PriceTable table;
+    private final AtomicLong versions = new AtomicLong();
+
+    public record Line(Long id, String testName, BigDecimal price, String category) {
+    }
+
+    public record Quote(List<Line> lines, BigDecimal total, long priceTableVersion) {
+    }
+
+    private record CompiledBundle(String name, long[] testIds, BigDecimal price) {
+    }
+
+    private record PriceTable(long version, Map<Long, Line> lines, Map<Long, BigDecimal> effectivePrices,
+            List<CompiledBundle> bundles, BigDecimal discountPercent, BigDecimal homeVisitFee) {
+    }
+
+    /**
+     * Price the given tests. Unknown ids are ignored (as before); an empty result is the
+     * caller's to reject.
+     */
+    public Quote quote(Collection<Long> testIds, boolean homeVisit) {
+        PriceTable current = table();
+
+        Set<Long> remaining = new LinkedHashSet<>();
+        List<Line> lines = new ArrayList<>();
+        if (testIds != null) {
+            for (Long id : testIds) {
+                Line line = id != null ? current.lines().get(id) : null;
+                if (line != null && remaining.add(id)) {
+                    lines.add(line);
+                }
+            }
+        }
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        // Bundles are ordered by savings, so the greedy pass takes the best deal first
+        for (CompiledBundle bundle : current.bundles()) {
+            if (containsAll(remaining, bundle.testIds())) {
+                for (long id : bundle.testIds()) {
+                    remaining.remove(id);
+                }
+                subtotal = subtotal.add(bundle.price());
+            }
+        }
+        for (Long id : remaining) {
+            subtotal = subtotal.add(current.effectivePrices().get(id));
+        }
+
+        if (current.discountPercent().signum() > 0) {
+            subtotal = subtotal.subtract(percentOf(subtotal, current.discountPercent()));
+        }
+        BigDecimal total = lines.isEmpty() ? BigDecimal.ZERO : subtotal;
+        if (homeVisit && !lines.isEmpty()) {
+            total = total.add(current.homeVisitFee());
+        }
+
+        return new Quote(List.copyOf(lines), total.setScale(2, RoundingMode.HALF_UP), current.version());
+    }
+
+    // Compile and install under one lock, so an older read can never replace a newer table
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(LabTestCatalogChangedEvent event) {
+        table = compile();
+    }
+
+    private PriceTable table() {
+        PriceTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                current = table;
+                if (current == null) {
+                    current = compile();
+                    table = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private PriceTable compile() {
+        List<LabTest> tests = labTestRepository.findAll();
+
+        Map<Long, Line> lines = new HashMap<>();
+        Map<Long, BigDecimal> effectivePrices = new HashMap<>();
+        Map<String, Long> idsByName = new HashMap<>();
+        for (LabTest test : tests) {
+            lines.put(test.getId(), new Line(test.getId(), test.getTestName(), test.getPrice(), test.getCategory()));
+            BigDecimal discount = test.getCategory() == null ? null
+                    : properties.getCategoryDiscounts().get(test.getCategory());
+            BigDecimal price = discount == null ? test.getPrice() : test.getPrice().subtract(percentOf(test.getPrice(), discount));
+            effectivePrices.put(test.getId(), price);
+            idsByName.put(test.getTestName(), test.getId());
+        }
+
+        List<CompiledBundle> bundles = new ArrayList<>();
+        for (PricingProperties.Bundle bundle : properties.getBundles()) {
+            long[] ids = new long[bundle.getTests().size()];
+            boolean resolved = bundle.getPrice() != null && ids.length > 1;
+            for (int i = 0; resolved && i < ids.length; i++) {
+                Long id = idsByName.get(bundle.getTests().get(i).trim());
+                if (id == null) {
+                    resolved = false;
+                } else {
+                    ids[i] = id;
+                }
+            }
+            if (resolved) {
+                bundles.add(new CompiledBundle(bundle.getName(), ids, bundle.getPrice()));
+            } else {
+                log.warn("Skipping pricing bundle '{}': unknown tests or missing price", bundle.getName());
+            }
+        }
+        bundles.sort(Comparator.comparing((CompiledBundle b) -> savings(b, effectivePrices)).reversed());
+
+        // Wall-clock based so versions keep increasing across restarts; never reused within one
+        long version = versions.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+        return new PriceTable(version, Map.copyOf(lines), Map.copyOf(effectivePrices), List.copyOf(bundles),
+                properties.getDiscountPercent(), properties.getHomeVisitFee());
+    }
+
+    private static BigDecimal savings(CompiledBundle bundle, Map<Long, BigDecimal> prices) {
+        return Arrays.stream(bundle.testIds())
+                .mapToObj(prices::get)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .subtract(bundle.price());
+    }
+
+    private static boolean containsAll(Set<Long> ids, long[] required) {
+        for (long id : required) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static BigDecimal percentOf(BigDecimal amount, BigDecimal percent) {
+        return amount.multiply(percent).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,309 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.config.ReportStorageProperties;
+import com.chopadelab.core.dto.AppointmentDto;
+import com.chopadelab.core.entity.ReportFile;
+import com.chopadelab.core.exception.ReportNotFoundException;
+import com.chopadelab.core.repository.AppointmentRepository;
+import com.chopadelab.core.repository.ReportFileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Lab reports on the local filesystem, stored by SHA-256 of their content so re-uploading
+ * the same scan (or one report shared by several appointments) keeps a single file.
+ * Uploads stream through the digest into a temp file and are moved into place; downloads
+ * hand out a file-backed {@link Resource}, which Spring MVC serves in whole or as byte
+ * ranges without reading it into memory.
+ * <p>
+ * The report row and the appointment's reportUrl are written in one transaction. Blobs no
+ * report points at any more (replaced reports, uploads whose transaction failed) are removed
+ * by a periodic sweep once they are older than a grace period. Uploads hold a shared lock from
+ * placing their blob until their transaction commits and the sweep deletes under the exclusive
+ * lock, so a blob is never removed between an upload finding it and its row committing.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReportStorageService {
+
+    private static final List<String> ACCEPTED_TYPES = List.of("application/pdf", "image/jpeg", "image/png");
+    private static final int MAX_FILE_NAME_LENGTH = 200;
+    private static final String TMP_DIR = ".tmp";
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}");
+    private static final int SWEEP_BATCH = 500;
+
+    private final ReportStorageProperties properties;
+    private final ReportFileRepository reportFileRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentService appointmentService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock blobLock = new ReentrantReadWriteLock();
+
+    public record StoredReport(ReportFile file, Resource resource) {
+
+        // The content hash is a strong validator for the bytes served at this URL
+        public String etag() {
+            return "\"" + file.getSha256() + "\"";
+        }
+    }
+
+    public static String downloadPath(Long appointmentId) {
+        return "/api/appointments/" + appointmentId + "/report";
+    }
+
+    /**
+     * Store {@code upload} as the appointment's report and point its reportUrl at the download
+     * endpoint (which notifies listeners of REPORT_UPLOADED), both in one transaction.
+     */
+    public AppointmentDto store(Long appointmentId, MultipartFile upload) throws IOException {
+        Long patientId = appointmentRepository.findPatientIdById(appointmentId)
+                .orElseThrow(() -> new ReportNotFoundException("Appointment not found with id " + appointmentId));
+        if (upload.isEmpty()) {
+            throw new IllegalArgumentException("Report file is empty");
+        }
+
+        Path tmpDir = Files.createDirectories(root().resolve(TMP_DIR));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(upload.getInputStream(), digest);
+                    OutputStream out = Files.newOutputStream(tmp)) {
+                size = copyBounded(in, out, properties.getMaxSize().toBytes());
+            }
+            String contentType = sniffContentType(tmp);
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+
+            ReportFile file = ReportFile.builder()
+                    .appointmentId(appointmentId)
+                    .patientId(patientId)
+                    .sha256(sha256)
+                    .contentType(contentType)
+                    .size(size)
+                    .fileName(cleanFileName(upload.getOriginalFilename(), appointmentId, contentType))
+                    .uploadedAt(LocalDateTime.now())
+                    .build();
+
+            Path blob = blobPath(sha256);
+            blobLock.readLock().lock();
+            try {
+                if (Files.exists(blob)) {
+                    log.debug("Report for appointment {} deduplicated to {}", appointmentId, sha256);
+                } else {
+                    Files.createDirectories(blob.getParent());
+                    // rename(2): readers see the whole file or none; a concurrent identical upload just wins or loses
+                    Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+                }
+                // If this fails the blob is left unreferenced and the sweep takes it
+                return appointmentService.attachReport(appointmentId, downloadPath(appointmentId),
+                        () -> reportFileRepository.save(file));
+            } finally {
+                blobLock.readLock().unlock();
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Delete blobs that no report points at and upload temp files left behind by a crash,
+     * skipping anything younger than the grace period. Returns the number of files deleted.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.sweep-ms:3600000}")
+    public int sweepUnreferenced() {
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - properties.getSweepGraceMs();
+        int deleted = 0;
+        List<Path> candidates = new ArrayList<>(SWEEP_BATCH);
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file) || !olderThan(file, cutoff)) {
+                    continue;
+                }
+                if (file.getParent().equals(root.resolve(TMP_DIR))) {
+                    deleted += delete(file) ? 1 : 0;
+                } else if (isBlob(root, file)) {
+                    candidates.add(file);
+                    if (candidates.size() == SWEEP_BATCH) {
+                        deleted += deleteUnreferenced(candidates);
+                        candidates.clear();
+                    }
+                }
+            }
+            deleted += deleteUnreferenced(candidates);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Report sweep stopped early after deleting {} files", deleted, e);
+        }
+        if (deleted > 0) {
+            log.info("Report sweep deleted {} unreferenced files", deleted);
+        }
+        return deleted;
+    }
+
+    private int deleteUnreferenced(List<Path> blobs) {
+        if (blobs.isEmpty()) {
+            return 0;
+        }
+        Map<String, Path> bySha = new HashMap<>();
+        blobs.forEach(blob -> bySha.put(blob.getFileName().toString(), blob));
+        blobLock.writeLock().lock();
+        try {
+            bySha.keySet().removeAll(reportFileRepository.findReferencedSha256(List.copyOf(bySha.keySet())));
+            int deleted = 0;
+            for (Path blob : bySha.values()) {
+                deleted += delete(blob) ? 1 : 0;
+            }
+            return deleted;
+        } finally {
+            blobLock.writeLock().unlock();
+        }
+    }
+
+    // False when the file is gone already, e.g. an upload finished with its temp file
+    private static boolean olderThan(Path file, long cutoffMillis) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < cutoffMillis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isBlob(Path root, Path file) {
+        String name = file.getFileName().toString();
+        return BLOB_NAME.matcher(name).matches() && file.getParent().equals(root.resolve(name.substring(0, 2)));
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * The report of an appointment, if the requester may see it: admins see every report,
+     * patients only their own. Anything else is reported as not found, so ids cannot be probed.
+     * Reads with plain JDBC so that no pooled connection stays bound to the request (open
+     * session in view) while the file streams to a slow client.
+     */
+    public StoredReport open(Long appointmentId, Long requesterId, boolean admin) {
+        List<ReportFile> rows = jdbcTemplate.query("""
+                select patient_id, sha256, content_type, size, file_name, uploaded_at
+                from report_files where appointment_id = ?
+                """, (rs, n) -> ReportFile.builder()
+                .appointmentId(appointmentId)
+                .patientId(rs.getLong("patient_id"))
+                .sha256(rs.getString("sha256"))
+                .contentType(rs.getString("content_type"))
+                .size(rs.getLong("size"))
+                .fileName(rs.getString("file_name"))
+                .uploadedAt(rs.getObject("uploaded_at", LocalDateTime.class))
+                .build(), appointmentId);
+
+        ReportFile file = rows.isEmpty() ? null : rows.get(0);
+        if (file == null || (!admin && !file.getPatientId().equals(requesterId))) {
+            throw new ReportNotFoundException("No report for appointment " + appointmentId);
+        }
+        Path blob = blobPath(file.getSha256());
+        if (!Files.isReadable(blob)) {
+            log.error("Report blob {} for appointment {} is missing", file.getSha256(), appointmentId);
+            throw new ReportNotFoundException("Report file for appointment " + appointmentId + " is missing");
+        }
+        return new StoredReport(file, new FileSystemResource(blob));
+    }
+
+    private Path root() {
+        return Paths.get(properties.getDir()).toAbsolutePath().normalize();
+    }
+
+    private Path blobPath(String sha256) {
+        return root().resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static long copyBounded(InputStream in, OutputStream out, long maxBytes) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxBytes) {
+                throw new IllegalArgumentException("Report is larger than " + maxBytes + " bytes");
+            }
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+
+    // Decided from the bytes, not the client's Content-Type, since it is served back inline
+    private static String sniffContentType(Path file) throws IOException {
+        byte[] head = new byte[8];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(head, 0, head.length);
+        }
+        String type = null;
+        if (n >= 5 && head[0] == '%' && head[1] == 'P' && head[2] == 'D' && head[3] == 'F' && head[4] == '-') {
+            type = ACCEPTED_TYPES.get(0);
+        } else if (n >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            type = ACCEPTED_TYPES.get(1);
+        } else if (n >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            type = ACCEPTED_TYPES.get(2);
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Only PDF, JPEG or PNG reports are accepted");
+        }
+        return type;
+    }
+
+    private static String cleanFileName(String original, Long appointmentId, String contentType) {
+        String name = original == null ? "" : original.substring(original.replace('\\', '/').lastIndexOf('/') + 1);
+        name = name.replaceAll("[\\p{Cntrl}\"]", "").strip();
+        if (name.isEmpty()) {
+            String extension = contentType.substring(contentType.indexOf('/') + 1).replace("jpeg", "jpg");
+            return "report-" + appointmentId + "." + extension;
+        }
+        return name.length() > MAX_FILE_NAME_LENGTH ? name.substring(name.length() - MAX_FILE_NAME_LENGTH) : name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
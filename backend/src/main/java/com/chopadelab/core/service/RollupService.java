@@ -0,0 +1,169 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.DailyRollupDto;
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.entity.RollupEvent;
+import com.chopadelab.core.repository.RollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the daily revenue/volume rollups in step with appointments. A booking or transition
+ * only appends to the rollup_events outbox in its own transaction, so bookings never queue on
+ * the shared per-day rows; a background pass folds the outbox into the rollups a batch at a
+ * time, and the rebuild recomputes everything from one snapshot without blocking either.
+ * Applying and rebuilding never overlap, so an event is counted exactly once.
+ */
+@Service
+@Lazy(false)
+public class RollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    public static final int MAX_RANGE_DAYS = 366;
+    static final int APPLY_BATCH = 1_000;
+
+    private final RollupRepository rollupRepository;
+    private final TransactionTemplate applyTransaction;
+    private final TransactionTemplate rebuildTransaction;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public RollupService(RollupRepository rollupRepository, PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.applyTransaction = new TransactionTemplate(transactionManager);
+        // One snapshot for reading the appointments and clearing the events they already include
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBooked(Collection<Long> appointmentIds) {
+        record(appointmentIds, RollupEvent.Kind.BOOKED);
+    }
+
+    /**
+     * Record appointments that just moved to {@code to}. Only completion and cancellation
+     * change the rollups; both are final states, so each appointment is counted once.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Collection<Long> appointmentIds, AppointmentStatus to) {
+        if (to == AppointmentStatus.CANCELLED) {
+            record(appointmentIds, RollupEvent.Kind.CANCELLED);
+        } else if (to == AppointmentStatus.COMPLETED) {
+            record(appointmentIds, RollupEvent.Kind.COMPLETED);
+        }
+    }
+
+    private void record(Collection<Long> appointmentIds, RollupEvent.Kind kind) {
+        if (!appointmentIds.isEmpty()) {
+            rollupRepository.recordEvents(appointmentIds, kind.name());
+        }
+    }
+
+    /**
+     * Fold pending events into the rollups, oldest first, one transaction per batch.
+     * Returns the number of events applied.
+     */
+    @Scheduled(fixedDelayString = "${app.rollups.apply-ms:2000}")
+    public int applyPending() {
+        writeLock.lock();
+        try {
+            int applied = 0;
+            int batch;
+            do {
+                batch = applyTransaction.execute(status -> {
+                    List<Long> ids = rollupRepository.findPendingEventIds(APPLY_BATCH);
+                    if (!ids.isEmpty()) {
+                        rollupRepository.applyDailyEvents(ids);
+                        rollupRepository.applyPerTestEvents(ids);
+                        rollupRepository.deleteEvents(ids);
+                    }
+                    return ids.size();
+                });
+                applied += batch;
+            } while (batch == APPLY_BATCH);
+            return applied;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return rollupRepository.count() == 0;
+    }
+
+    @Transactional
+    public void backfillLines() {
+        int lines = rollupRepository.backfillLines();
+        if (lines > 0) {
+            log.info("Backfilled {} appointment lines at current catalog prices", lines);
+        }
+    }
+
+    /**
+     * Recompute the rollups from the appointments. Runs in a repeatable-read snapshot: the
+     * events it deletes are exactly those committed before the snapshot, whose changes it has
+     * just counted, while events committed during the rebuild stay queued for the next apply.
+     * Readers keep seeing the old rollups until it commits; bookings are not held up.
+     */
+    @Scheduled(cron = "${app.rollups.rebuild-cron:-}")
+    public int rebuild() {
+        writeLock.lock();
+        try {
+            long started = System.nanoTime();
+            int[] counts = rebuildTransaction.execute(status -> {
+                rollupRepository.deleteAllPerTest();
+                rollupRepository.deleteAllDaily();
+                int days = rollupRepository.rebuildDaily();
+                int testRows = rollupRepository.rebuildPerTest();
+                rollupRepository.deleteAllEvents();
+                return new int[] { days, testRows };
+            });
+            log.info("Rebuilt rollups: {} days, {} per-test rows in {} ms", counts[0], counts[1],
+                    (System.nanoTime() - started) / 1_000_000);
+            return counts[0];
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyRollupDto> daily(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return rollupRepository.findByDayBetweenOrderByDay(from, to).stream()
+                .map(DailyRollupDto::from)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<RollupRepository.TestTotal> byTest(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return rollupRepository.sumByTest(from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RollupRepository.CategoryTotal> byCategory(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        return rollupRepository.sumByCategory(from, to);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must be between 1 and " + MAX_RANGE_DAYS + " days");
+        }
+    }
+}
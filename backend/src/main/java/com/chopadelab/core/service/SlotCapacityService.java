@@ -0,0 +1,198 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.config.SlotProperties;
+import com.chopadelab.core.dto.SlotAvailabilityDto;
+import com.chopadelab.core.entity.SlotCounter;
+import com.chopadelab.core.exception.SlotUnavailableException;
+import com.chopadelab.core.repository.SlotCounterRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Caps bookings per collection slot. Each slot has its own in-memory counter (so a burst at
+ * opening time only contends per slot, never on a global lock) that fast-rejects full slots;
+ * the conditional UPDATE on slot_counters and its check constraint are what actually prevent
+ * overselling, and the in-memory count is resynced from the DB whenever they disagree.
+ */
+@Service
+@RequiredArgsConstructor
+public class SlotCapacityService {
+
+    private final SlotCounterRepository slotCounterRepository;
+    private final SlotProperties properties;
+
+    private record SlotKey(LocalDateTime slotStart, boolean homeVisit) {
+    }
+
+    private final ConcurrentHashMap<SlotKey, AtomicInteger> reserved = new ConcurrentHashMap<>();
+
+    public LocalDateTime slotStartOf(LocalDateTime time) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        int slotMinutes = properties.getSlotMinutes();
+        return time.toLocalDate().atStartOfDay().plusMinutes(minuteOfDay - minuteOfDay % slotMinutes);
+    }
+
+    public int capacity(boolean homeVisit) {
+        return homeVisit ? properties.getHomeVisitCapacity() : properties.getWalkInCapacity();
+    }
+
+    /**
+     * Reserve one place in the slot containing {@code time}, as part of the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(LocalDateTime time, boolean homeVisit) {
+        reserve(time, homeVisit, 1);
+    }
+
+    /**
+     * Reserve several places in one slot at once (bulk bookings), all or nothing.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(LocalDateTime time, boolean homeVisit, int places) {
+        requireBookable(time);
+        SlotKey key = new SlotKey(slotStartOf(time), homeVisit);
+        int capacity = capacity(homeVisit);
+        AtomicInteger counter = counter(key);
+
+        int current;
+        do {
+            current = counter.get();
+            if (current + places > capacity) {
+                throw new SlotUnavailableException("Slot " + key.slotStart() + " is fully booked");
+            }
+        } while (!counter.compareAndSet(current, current + places));
+
+        boolean reservedInDb = false;
+        try {
+            slotCounterRepository.insertSlotIfAbsent(key.slotStart(), homeVisit, capacity);
+            reservedInDb = slotCounterRepository.tryReserve(key.slotStart(), homeVisit, places, capacity) == 1;
+        } finally {
+            if (!reservedInDb) {
+                counter.addAndGet(-places);
+            }
+        }
+        if (!reservedInDb) {
+            // The mirror was stale (e.g. another instance booked); reload it on next use
+            reserved.remove(key, counter);
+            throw new SlotUnavailableException("Slot " + key.slotStart() + " is fully booked");
+        }
+
+        afterCompletion(committed -> {
+            if (!committed) {
+                counter.addAndGet(-places);
+            }
+        });
+    }
+
+    /**
+     * Give back the place held by a cancelled appointment, as part of the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(LocalDateTime time, boolean homeVisit) {
+        release(time, homeVisit, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(LocalDateTime time, boolean homeVisit, int places) {
+        if (time == null) {
+            return;
+        }
+        SlotKey key = new SlotKey(slotStartOf(time), homeVisit);
+        int released = slotCounterRepository.release(key.slotStart(), homeVisit, places);
+        if (released == 1) {
+            afterCompletion(committed -> {
+                AtomicInteger counter = reserved.get(key);
+                if (committed && counter != null) {
+                    counter.updateAndGet(v -> Math.max(0, v - places));
+                }
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<SlotAvailabilityDto> availability(LocalDate from, LocalDate to, boolean homeVisit) {
+        if (to.isBefore(from) || to.isAfter(from.plusDays(properties.getMaxRangeDays()))) {
+            throw new IllegalArgumentException("Date range must be ascending and at most "
+                    + properties.getMaxRangeDays() + " days");
+        }
+
+        Map<LocalDateTime, Integer> fromDb = new HashMap<>();
+        for (SlotCounter row : slotCounterRepository.findBySlotStartGreaterThanEqualAndSlotStartLessThan(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            if (row.isHomeVisit() == homeVisit) {
+                fromDb.put(row.getSlotStart(), row.getReserved());
+            }
+        }
+
+        int capacity = capacity(homeVisit);
+        List<SlotAvailabilityDto> slots = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDateTime close = day.atTime(properties.getCloseTime());
+            for (LocalDateTime start = slotStartOf(day.atTime(properties.getOpenTime())); start.isBefore(close);
+                    start = start.plusMinutes(properties.getSlotMinutes())) {
+                AtomicInteger live = reserved.get(new SlotKey(start, homeVisit));
+                int taken = live != null ? live.get() : fromDb.getOrDefault(start, 0);
+                slots.add(new SlotAvailabilityDto(start, homeVisit, capacity, Math.max(0, capacity - taken)));
+            }
+        }
+        return slots;
+    }
+
+    // Past slots can no longer be booked; drop their counters
+    @Scheduled(fixedDelayString = "#{@slotProperties.evictIntervalMs}")
+    public void evictPastSlots() {
+        LocalDateTime cutoff = LocalDate.now().atStartOfDay();
+        reserved.keySet().removeIf(key -> key.slotStart().isBefore(cutoff));
+    }
+
+    private void requireBookable(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Appointment time is required");
+        }
+        if (time.isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Appointment time " + time + " is in the past");
+        }
+        LocalTime timeOfDay = time.toLocalTime();
+        if (timeOfDay.isBefore(properties.getOpenTime()) || !timeOfDay.isBefore(properties.getCloseTime())) {
+            throw new IllegalArgumentException("Appointment time " + time + " is outside opening hours ("
+                    + properties.getOpenTime() + "-" + properties.getCloseTime() + ")");
+        }
+    }
+
+    private AtomicInteger counter(SlotKey key) {
+        AtomicInteger counter = reserved.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        // Load outside computeIfAbsent so the DB read never runs under the map's bin lock
+        int fromDb = slotCounterRepository.findBySlotStartAndHomeVisit(key.slotStart(), key.homeVisit())
+                .map(SlotCounter::getReserved)
+                .orElse(0);
+        return reserved.computeIfAbsent(key, k -> new AtomicInteger(fromDb));
+    }
+
+    private void afterCompletion(Consumer<Boolean> callback) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
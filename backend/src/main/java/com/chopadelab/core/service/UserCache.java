@@ -0,0 +1,134 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.CacheStatsDto;
+import com.chopadelab.core.entity.User;
+import com.chopadelab.core.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, TTL-evicting read-through cache in front of {@link UserRepository#findByUsername}.
+ * Callers get their own detached copy, so changing it never leaks into the cache; to modify
+ * a user, load it from the repository and call {@link #invalidate(String)} after saving.
+ * A load that overlaps an invalidation of the same key is returned but not cached, so a
+ * stale read can never outlive the change for a full TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    private final UserRepository userRepository;
+
+    @Value("${app.cache.users.max-size:1000}")
+    private int maxSize;
+
+    @Value("${app.cache.users.ttl-ms:60000}")
+    private long ttlMillis;
+
+    private static final int STAMP_STRIPES = 64;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped by invalidate(); a loader only caches if its key's stripe did not move meanwhile
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    // Only one thread sweeps at a time; others skip instead of waiting
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry(User user, long expiresAt) {
+    }
+
+    public Optional<User> findByUsername(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null) {
+            if (entry.expiresAt() > now) {
+                hits.increment();
+                return Optional.of(copyOf(entry.user()));
+            }
+            if (entries.remove(username, entry)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        int stripe = stripe(username);
+        long stamp = stamps.get(stripe);
+        Optional<User> loaded = userRepository.findByUsername(username);
+        loaded.ifPresent(user -> {
+            User cached = copyOf(user);
+            // Checked inside compute so an invalidate() cannot slip between the check and the put
+            entries.compute(username, (key, current) ->
+                    stamps.get(stripe) == stamp ? new Entry(cached, now + ttlMillis) : current);
+            if (entries.size() > maxSize) {
+                sweep(now);
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            // Stamp first: a load already in flight then refuses to cache what it read
+            stamps.incrementAndGet(stripe(username));
+            entries.remove(username);
+        }
+    }
+
+    public CacheStatsDto stats() {
+        return new CacheStatsDto(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private static int stripe(String username) {
+        return (username.hashCode() & Integer.MAX_VALUE) % STAMP_STRIPES;
+    }
+
+    private static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .fullName(user.getFullName())
+                .phoneNumber(user.getPhoneNumber())
+                .address(user.getAddress())
+                .age(user.getAge())
+                .gender(user.getGender())
+                .enabled(user.isEnabled())
+                .roles(new HashSet<>(user.getRoles()))
+                .build();
+    }
+
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Expired entries first, then arbitrary ones until we are back under the bound
+            entries.entrySet().removeIf(e -> {
+                boolean expired = e.getValue().expiresAt() <= now;
+                if (expired) evictions.increment();
+                return expired;
+            });
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
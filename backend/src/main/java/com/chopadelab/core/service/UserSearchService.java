@@ -0,0 +1,101 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.UserPageDto;
+import com.chopadelab.core.dto.UserSummaryDto;
+import com.chopadelab.core.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class UserSearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Fewer digits than this would match a large share of all phone numbers
+    private static final int MIN_PHONE_DIGITS = 3;
+    private static final Pattern PHONE_QUERY = Pattern.compile("[0-9+()\\-.\\s]+");
+
+    private final UserRepository userRepository;
+
+    /**
+     * Keyset page of users matching {@code query} anywhere in the username or full name, or, when
+     * the query looks like a phone number (only digits and separators, at least three digits), in
+     * the phone number ignoring spaces, dashes and the like. A blank query lists everyone,
+     * newest first. Two statements per page: the matching rows, then their role names.
+     */
+    @Transactional(readOnly = true)
+    public UserPageDto search(String query, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long beforeId = parseCursor(cursor);
+
+        String text = query == null ? "" : query.strip().toLowerCase(Locale.ROOT);
+        String pattern = "%" + escapeLike(text) + "%";
+        String digitsPattern = phoneDigitsPattern(text);
+
+        // Fetch one extra row to know whether another page exists
+        List<UserRepository.SummaryRow> rows = userRepository.searchPage(beforeId, pattern, digitsPattern, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = String.valueOf(rows.get(size - 1).getId());
+        }
+        if (rows.isEmpty()) {
+            return new UserPageDto(List.of(), null);
+        }
+
+        Map<Long, List<String>> roles = userRepository
+                .findRoleNamesByIdIn(rows.stream().map(UserRepository.SummaryRow::getId).toList()).stream()
+                .collect(Collectors.groupingBy(UserRepository.UserRole::getUserId,
+                        Collectors.mapping(UserRepository.UserRole::getRole, Collectors.toList())));
+
+        List<UserSummaryDto> items = new ArrayList<>(rows.size());
+        for (UserRepository.SummaryRow row : rows) {
+            items.add(new UserSummaryDto(row.getId(), row.getUsername(), row.getFullName(), row.getPhoneNumber(),
+                    Boolean.TRUE.equals(row.getEnabled()), roles.getOrDefault(row.getId(), List.of())));
+        }
+        return new UserPageDto(items, nextCursor);
+    }
+
+    // Role name -> number of users holding it
+    @Transactional(readOnly = true)
+    public Map<String, Long> countByRole() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        userRepository.countByRole().forEach(c -> counts.put(c.getRole(), c.getCount()));
+        return counts;
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // "%98765%" for "98-765", null for anything that is not a phone number fragment ("user42")
+    static String phoneDigitsPattern(String text) {
+        if (!PHONE_QUERY.matcher(text).matches()) {
+            return null;
+        }
+        String digits = text.replaceAll("[^0-9]", "");
+        return digits.length() < MIN_PHONE_DIGITS ? null : "%" + digits + "%";
+    }
+
+    // Postgres LIKE escapes with a backslash by default
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
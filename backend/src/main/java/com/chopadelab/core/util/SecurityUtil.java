@@ -1,7 +1,7 @@
 package com.chopadelab.core.util;
 
 import com.chopadelab.core.entity.User;
-import com.chopadelab.core.repository.UserRepository;
+import com.chopadelab.core.security.CurrentUserArgumentResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -12,7 +12,7 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class SecurityUtil {
 
-    private final UserRepository userRepository;
+    private final CurrentUserArgumentResolver currentUserResolver;
 
     public Authentication getAuth() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -27,8 +27,8 @@ public class SecurityUtil {
     }
 
     public User getCurrentUserEntity() {
-        return userRepository.findByUsername(getCurrentUsername())
-                .orElseThrow(() -> new AccessDeniedException("Authenticated user not found"));
+        // Shares the per-request memo with @CurrentUser controller arguments
+        return currentUserResolver.currentUser();
     }
 
     public boolean isAdmin() {
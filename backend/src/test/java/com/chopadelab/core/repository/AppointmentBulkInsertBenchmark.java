@@ -0,0 +1,94 @@
+package com.chopadelab.core.repository;
+
+import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rows/second for appointment inserts (sequence ids): flushing after every row versus one
+ * batched flush, i.e. single-row statements versus JDBC batches of 50. Opt-in, on H2, so the
+ * numbers are only meaningful relative to each other:
+ * mvn test -Dtest=AppointmentBulkInsertBenchmark -Dbenchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+class AppointmentBulkInsertBenchmark {
+
+    private static final int ROWS = 2_000;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private User patient;
+    private Set<LabTest> tests;
+
+    @BeforeEach
+    void seed() {
+        patient = em.persist(User.builder().username("camp").password("x").build());
+        tests = Set.of(
+                em.persist(LabTest.builder().testName("CBC").price(new BigDecimal("250")).build()),
+                em.persist(LabTest.builder().testName("LFT").price(new BigDecimal("500")).build()));
+        em.flush();
+    }
+
+    @Test
+    void rowByRowVersusBatched() {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            appointmentRepository.save(newAppointment(i));
+            em.flush();
+        }
+        double rowByRow = rowsPerSecond(start);
+        em.clear();
+
+        List<Appointment> batch = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(newAppointment(i));
+        }
+        start = System.nanoTime();
+        appointmentRepository.saveAll(batch);
+        em.flush();
+        double batched = rowsPerSecond(start);
+
+        log.info("Appointment inserts: row by row {} rows/s, batched {} rows/s",
+                Math.round(rowByRow), Math.round(batched));
+    }
+
+    private Appointment newAppointment(int i) {
+        return Appointment.builder()
+                .patient(em.getEntityManager().getReference(User.class, patient.getId()))
+                .tests(new HashSet<>(tests))
+                .appointmentTime(LocalDateTime.now().plusMinutes(i))
+                .totalAmount(new BigDecimal("750"))
+                .status(AppointmentStatus.PENDING)
+                .build();
+    }
+
+    private static double rowsPerSecond(long startNanos) {
+        return ROWS / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,149 @@
+package com.chopadelab.core.repository;
+
+import com.chopadelab.core.dto.AppointmentDto;
+import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentLine;
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the fetch plans behind the appointment endpoints against N+1 regressions.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class AppointmentRepositoryQueryCountTests {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private User patient;
+    private LabTest cbc;
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        patient = em.persist(User.builder().username("patient").password("x").build());
+        cbc = em.persist(LabTest.builder().testName("CBC").price(new BigDecimal("250")).build());
+        LabTest lft = em.persist(LabTest.builder().testName("LFT").price(new BigDecimal("500")).build());
+
+        for (int i = 0; i < 5; i++) {
+            em.persist(Appointment.builder()
+                    .patient(patient)
+                    .tests(Set.of(cbc, lft))
+                    .appointmentTime(LocalDateTime.now().plusDays(i))
+                    .totalAmount(new BigDecimal("750"))
+                    .status(AppointmentStatus.PENDING)
+                    .build());
+        }
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void adminPageLoadsRowsAndTestsInTwoStatements() {
+        List<Long> ids = appointmentRepository.findPageIds(null, null, null, null, null, PageRequest.of(0, 10));
+        List<AppointmentDto> page = appointmentRepository.findWithTestsByIdIn(ids).stream()
+                .map(AppointmentDto::from)
+                .toList();
+
+        assertThat(page).hasSize(5);
+        assertThat(page).allSatisfy(dto -> assertThat(dto.tests()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void patientHistoryIsASingleStatement() {
+        List<AppointmentDto> history = appointmentRepository.findByPatient(patient).stream()
+                .map(AppointmentDto::from)
+                .toList();
+
+        assertThat(history).hasSize(5);
+        assertThat(history).allSatisfy(dto -> assertThat(dto.patientId()).isEqualTo(patient.getId()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void readsAndExportCarryBookedPricesNotTheCurrentCatalog() {
+        LabTest cbc = em.find(LabTest.class, this.cbc.getId());
+        Appointment booked = em.persist(Appointment.builder()
+                .patient(patient)
+                .tests(Set.of(cbc))
+                .lines(Set.of(new AppointmentLine(cbc.getId(), new BigDecimal("250.00"), "Haematology")))
+                .appointmentTime(LocalDateTime.now().plusDays(10))
+                .totalAmount(new BigDecimal("250.00"))
+                .status(AppointmentStatus.PENDING)
+                .build());
+        cbc.setPrice(new BigDecimal("300.00"));
+        cbc.setCategory("Blood");
+        em.flush();
+        em.clear();
+
+        AppointmentDto.TestLine line = appointmentRepository.findWithTestsByIdIn(List.of(booked.getId())).stream()
+                .map(AppointmentDto::from)
+                .findFirst().orElseThrow().tests().get(0);
+        assertThat(line.price()).isEqualByComparingTo("250.00");
+        assertThat(line.category()).isEqualTo("Haematology");
+
+        try (Stream<AppointmentRepository.ExportRow> rows = appointmentRepository.streamForExport(null, null, null,
+                null)) {
+            List<AppointmentRepository.ExportRow> exported = rows.filter(row -> "CBC".equals(row.getTestName()))
+                    .toList();
+            // The booked row keeps its price; rows booked without lines fall back to the catalog
+            assertThat(exported).filteredOn(row -> row.getId().equals(booked.getId()))
+                    .singleElement()
+                    .satisfies(row -> {
+                        assertThat(row.getTestPrice()).isEqualByComparingTo("250.00");
+                        assertThat(row.getTestCategory()).isEqualTo("Haematology");
+                    });
+            assertThat(exported).filteredOn(row -> !row.getId().equals(booked.getId()))
+                    .hasSize(5)
+                    .allSatisfy(row -> assertThat(row.getTestPrice()).isEqualByComparingTo("300.00"));
+        }
+    }
+
+    @Test
+    void bulkTransitionLocksThenMovesEveryCheckedRow() {
+        List<Long> ids = appointmentRepository.findPageIds(null, null, null, null, null, PageRequest.of(0, 10));
+        em.getEntityManager().createQuery("update Appointment a set a.status = null where a.id = :id")
+                .setParameter("id", ids.get(0))
+                .executeUpdate();
+
+        List<AppointmentRepository.StatusView> views = appointmentRepository.lockStatusViewsByIdIn(ids);
+        assertThat(views).extracting(AppointmentRepository.StatusView::getId).containsExactlyElementsOf(
+                ids.stream().sorted().toList());
+        assertThat(views).filteredOn(view -> view.getStatus() == null).hasSize(1);
+        assertThat(views).filteredOn(view -> view.getStatus() == AppointmentStatus.PENDING).hasSize(4);
+
+        // Rows predating the status column move too
+        assertThat(appointmentRepository.updateStatusByIdIn(ids, AppointmentStatus.CANCELLED)).isEqualTo(5);
+    }
+}
@@ -0,0 +1,58 @@
+package com.chopadelab.core.repository;
+
+import com.chopadelab.core.entity.DailyTestRollup;
+import com.chopadelab.core.entity.LabTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class RollupRepositoryTests {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private RollupRepository rollupRepository;
+
+    @Test
+    void perTestAndPerCategoryTotalsSplitByTheBookedCategory() {
+        // Vitamin D was booked under "Vitamins", then moved to "Biochemistry" in the catalog
+        LabTest vitaminD = em.persist(LabTest.builder().testName("Vitamin D").price(new BigDecimal("1500"))
+                .category("Biochemistry").build());
+        em.persist(rollup(vitaminD, DAY, "Vitamins", 2, "3000.00"));
+        em.persist(rollup(vitaminD, DAY.plusDays(1), "Biochemistry", 1, "1500.00"));
+        em.flush();
+
+        List<RollupRepository.TestTotal> byTest = rollupRepository.sumByTest(DAY, DAY.plusDays(1));
+        List<RollupRepository.CategoryTotal> byCategory = rollupRepository.sumByCategory(DAY, DAY.plusDays(1));
+
+        assertThat(byTest)
+                .extracting(RollupRepository.TestTotal::getCategory, RollupRepository.TestTotal::getAppointments)
+                .containsExactly(tuple("Vitamins", 2L), tuple("Biochemistry", 1L));
+        assertThat(byCategory)
+                .extracting(RollupRepository.CategoryTotal::getCategory, RollupRepository.CategoryTotal::getAppointments)
+                .containsExactly(tuple("Vitamins", 2L), tuple("Biochemistry", 1L));
+    }
+
+    private static DailyTestRollup rollup(LabTest test, LocalDate day, String category, long appointments,
+            String revenue) {
+        return DailyTestRollup.builder()
+                .day(day)
+                .testId(test.getId())
+                .category(category)
+                .appointments(appointments)
+                .revenue(new BigDecimal(revenue))
+                .build();
+    }
+}
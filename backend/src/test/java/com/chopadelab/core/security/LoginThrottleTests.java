@@ -0,0 +1,108 @@
+package com.chopadelab.core.security;
+
+import com.chopadelab.core.config.ThrottleProperties;
+import com.chopadelab.core.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTests {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private ThrottleProperties properties;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ThrottleProperties();
+        properties.setIpCapacity(2);
+        properties.setIpRefillPerMinute(60); // one per second
+        throttle = new LoginThrottle(properties, clock::get);
+    }
+
+    @Test
+    void emptyBucketRejectsUntilATokenRefills() {
+        throttle.checkLogin(from("10.0.0.1"), null);
+        throttle.checkLogin(from("10.0.0.1"), null);
+
+        assertThatThrownBy(() -> throttle.checkLogin(from("10.0.0.1"), null))
+                .isInstanceOf(TooManyRequestsException.class)
+                .satisfies(e -> assertThat(((TooManyRequestsException) e).getRetryAfterSeconds()).isBetween(1L, 2L));
+        assertThatCode(() -> throttle.checkLogin(from("10.0.0.2"), null)).doesNotThrowAnyException();
+
+        advance(1_000);
+        assertThatCode(() -> throttle.checkLogin(from("10.0.0.1"), null)).doesNotThrowAnyException();
+        assertThat(throttle.stats().rejectedByIp()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepDropsOnlyRefilledOrIdleBuckets() {
+        throttle.checkLogin(from("10.0.0.2"), null);
+        advance(1_000);
+        throttle.checkLogin(from("10.0.0.1"), null);
+        throttle.checkLogin(from("10.0.0.1"), null);
+
+        // .1 is back to one of two tokens, .2 has refilled
+        advance(1_000);
+        throttle.evictRefilled();
+        assertThat(throttle.stats().trackedKeys()).isEqualTo(1);
+
+        // Forgetting .2 gave nothing away: .1 still has only one token left
+        throttle.checkLogin(from("10.0.0.1"), null);
+        assertThatThrownBy(() -> throttle.checkLogin(from("10.0.0.1"), null))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        advance(properties.getIdleEvictMs() + 1);
+        throttle.evictRefilled();
+        assertThat(throttle.stats().trackedKeys()).isZero();
+        assertThat(throttle.stats().evicted()).isEqualTo(2);
+    }
+
+    @Test
+    void fullTableRefusesNewKeysUntilTheSweepFreesRoom() {
+        properties.setMaxKeys(1);
+        throttle.checkLogin(from("10.0.0.1"), null);
+
+        assertThatThrownBy(() -> throttle.checkLogin(from("10.0.0.2"), null))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThatCode(() -> throttle.checkLogin(from("10.0.0.1"), null)).doesNotThrowAnyException();
+        assertThat(throttle.stats().rejectedWhenFull()).isEqualTo(1);
+
+        advance(2_000);
+        throttle.evictRefilled();
+        assertThatCode(() -> throttle.checkLogin(from("10.0.0.2"), null)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void forwardedForIsIgnoredUnlessProxyHopsAreTrusted() {
+        MockHttpServletRequest spoofed = from("10.0.0.1");
+        spoofed.addHeader("X-Forwarded-For", "1.1.1.1");
+        throttle.checkLogin(spoofed, null);
+        throttle.checkLogin(from("10.0.0.1"), null);
+        assertThatThrownBy(() -> throttle.checkLogin(from("10.0.0.1"), null))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        properties.setTrustedProxyHops(1);
+        MockHttpServletRequest proxied = from("10.0.0.1");
+        proxied.addHeader("X-Forwarded-For", "6.6.6.6, 2.2.2.2");
+        assertThatCode(() -> throttle.checkLogin(proxied, null)).doesNotThrowAnyException();
+        assertThat(throttle.stats().trackedKeys()).isEqualTo(2);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static MockHttpServletRequest from(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
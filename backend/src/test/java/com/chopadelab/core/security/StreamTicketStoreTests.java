@@ -0,0 +1,38 @@
+package com.chopadelab.core.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamTicketStoreTests {
+
+    private final Authentication admin = new UsernamePasswordAuthenticationToken("admin", null,
+            List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+    @Test
+    void ticketIsRedeemedOnceForItsHolder() {
+        StreamTicketStore store = new StreamTicketStore(30_000);
+        String ticket = store.issue(admin);
+
+        StreamTicketStore.Ticket redeemed = store.redeem(ticket);
+        assertThat(redeemed.username()).isEqualTo("admin");
+        assertThat(redeemed.authorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+        assertThat(store.redeem(ticket)).isNull();
+    }
+
+    @Test
+    void expiredAndUnknownTicketsAreRejected() throws InterruptedException {
+        StreamTicketStore store = new StreamTicketStore(1);
+        String ticket = store.issue(admin);
+        Thread.sleep(5);
+
+        assertThat(store.redeem(ticket)).isNull();
+        assertThat(store.redeem("not-a-ticket")).isNull();
+        assertThat(store.redeem(null)).isNull();
+    }
+}
@@ -0,0 +1,69 @@
+package com.chopadelab.core.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenRevocationStoreTests {
+
+    private static final long BUCKET = 1_000;
+    private static final long MAX_LIFETIME = 10_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final TokenRevocationStore store = new TokenRevocationStore(BUCKET, MAX_LIFETIME, clock::get);
+
+    @Test
+    void revokeReportsWhetherTheIdWasAlreadyRevoked() {
+        long expiry = clock.get() + 5_000;
+
+        assertThat(store.revoke("jti-1", expiry)).isTrue();
+        assertThat(store.revoke("jti-1", expiry)).isFalse();
+        assertThat(store.isRevoked("jti-1", expiry)).isTrue();
+        assertThat(store.isRevoked("jti-2", expiry)).isFalse();
+        assertThat(store.isRevoked(null, expiry)).isFalse();
+    }
+
+    @Test
+    void alreadyExpiredAndTooDistantExpiriesAreNotStored() {
+        assertThat(store.revoke("old", clock.get() - 1)).isTrue();
+        assertThat(store.size()).isZero();
+
+        assertThatThrownBy(() -> store.revoke("far", clock.get() + MAX_LIFETIME + 2 * BUCKET))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void expiredBucketsAreDroppedWholeAndOthersKept() {
+        long soon = clock.get() + 1_500;
+        long later = clock.get() + 8_000;
+        store.revoke("a", soon);
+        store.revoke("b", soon);
+        store.revoke("c", later);
+
+        clock.addAndGet(3_000);
+        store.dropExpiredBuckets();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.isRevoked("a", soon)).isFalse();
+        assertThat(store.isRevoked("c", later)).isTrue();
+    }
+
+    @Test
+    void slotReusedOnTheNextLapHoldsOnlyTheNewBucket() {
+        long expiry = clock.get() + 2_000;
+        store.revoke("first-lap", expiry);
+
+        // A full lap later the same slot serves a new window; the old ids are not carried over
+        clock.addAndGet(MAX_LIFETIME);
+        long nextLap = expiry + (MAX_LIFETIME / BUCKET + 2) * BUCKET;
+        assertThat(store.revoke("second-lap", nextLap)).isTrue();
+
+        assertThat(store.isRevoked("second-lap", nextLap)).isTrue();
+        assertThat(store.isRevoked("first-lap", nextLap)).isFalse();
+        assertThat(store.isRevoked("first-lap", expiry)).isFalse();
+        assertThat(store.size()).isEqualTo(1);
+    }
+}
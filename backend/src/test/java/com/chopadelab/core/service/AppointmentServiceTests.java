@@ -0,0 +1,187 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.AppointmentDto;
+import com.chopadelab.core.dto.BulkStatusUpdateRequest;
+import com.chopadelab.core.dto.BulkStatusUpdateResultDto;
+import com.chopadelab.core.dto.BulkStatusUpdateResultDto.Outcome;
+import com.chopadelab.core.entity.Appointment;
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.exception.ConcurrentUpdateException;
+import com.chopadelab.core.exception.GlobalExceptionHandler;
+import com.chopadelab.core.repository.AppointmentRepository;
+import com.chopadelab.core.repository.LabTestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AppointmentServiceTests {
+
+    private AppointmentRepository appointmentRepository;
+    private AppointmentStatusCounters statusCounters;
+    private RollupService rollupService;
+    private TransactionTemplate transactionTemplate;
+    private AppointmentService service;
+
+    private record View(Long id, AppointmentStatus status) implements AppointmentRepository.StatusView {
+
+        public Long getId() {
+            return id;
+        }
+
+        public AppointmentStatus getStatus() {
+            return status;
+        }
+
+        public LocalDateTime getAppointmentTime() {
+            return LocalDateTime.of(2026, 3, 2, 9, 0);
+        }
+
+        public Boolean getHomeVisit() {
+            return false;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        statusCounters = mock(AppointmentStatusCounters.class);
+        rollupService = mock(RollupService.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        service = new AppointmentService(appointmentRepository, mock(LabTestRepository.class),
+                mock(PricingEngine.class), mock(SlotCapacityService.class), statusCounters,
+                mock(ApplicationEventPublisher.class), rollupService, transactionTemplate);
+    }
+
+    @Test
+    void staleIfMatchIsAConflictCarryingTheCurrentAppointmentAndETag() {
+        rowsRead(appointment(AppointmentStatus.PENDING, 4L));
+
+        assertThatThrownBy(() -> service.updateStatus(1L, AppointmentStatus.CONFIRMED, null, 3L))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class, e -> {
+                    assertThat(e.getVersion()).isEqualTo(4L);
+                    assertThat(((AppointmentDto) e.getCurrent()).status()).isEqualTo(AppointmentStatus.PENDING);
+
+                    ResponseEntity<Map<String, Object>> response = new GlobalExceptionHandler()
+                            .handleConcurrentUpdate(e);
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(response.getHeaders().getETag()).isEqualTo("\"4\"");
+                    assertThat(response.getBody()).containsEntry("current", e.getCurrent());
+                });
+        verify(appointmentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void lostVersionCheckIsReappliedToTheFreshRow() {
+        rowsRead(appointment(AppointmentStatus.PENDING, 4L), appointment(AppointmentStatus.PENDING, 5L));
+        when(appointmentRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        AppointmentDto updated = service.updateStatus(1L, AppointmentStatus.CONFIRMED, null);
+
+        assertThat(updated.status()).isEqualTo(AppointmentStatus.CONFIRMED);
+        assertThat(updated.version()).isEqualTo(5L);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void retryWhoseTransitionNoLongerAppliesIsAConflict() {
+        rowsRead(appointment(AppointmentStatus.PENDING, 4L), appointment(AppointmentStatus.CANCELLED, 5L));
+        when(appointmentRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L));
+
+        assertThatThrownBy(() -> service.updateStatus(1L, AppointmentStatus.CONFIRMED, null))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class, e -> {
+                    assertThat(e).hasMessageContaining("moved to CANCELLED concurrently");
+                    assertThat(e.getVersion()).isEqualTo(5L);
+                });
+        verify(appointmentRepository).saveAndFlush(any());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        rowsRead(appointment(AppointmentStatus.PENDING, 4L));
+        when(appointmentRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L));
+
+        assertThatThrownBy(() -> service.updateStatus(1L, AppointmentStatus.CONFIRMED, null))
+                .isInstanceOf(ConcurrentUpdateException.class)
+                .hasMessage("Appointment was modified concurrently");
+        verify(appointmentRepository, times(AppointmentService.MAX_UPDATE_ATTEMPTS)).saveAndFlush(any());
+    }
+
+    @Test
+    void lostVersionCheckUnderIfMatchIsNotRetried() {
+        rowsRead(appointment(AppointmentStatus.PENDING, 4L), appointment(AppointmentStatus.PENDING, 5L));
+        when(appointmentRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Appointment.class, 1L));
+
+        assertThatThrownBy(() -> service.updateStatus(1L, AppointmentStatus.CONFIRMED, null, 4L))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class,
+                        e -> assertThat(e.getVersion()).isEqualTo(5L));
+        verify(appointmentRepository).saveAndFlush(any());
+    }
+
+    @Test
+    void bulkMoveCountsLegacyRowsWithoutStatusSeparately() {
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L);
+        when(appointmentRepository.lockStatusViewsByIdIn(ids)).thenReturn(List.of(
+                new View(1L, null),
+                new View(2L, AppointmentStatus.PENDING),
+                new View(3L, AppointmentStatus.PENDING),
+                new View(4L, AppointmentStatus.COMPLETED)));
+        when(appointmentRepository.updateStatusByIdIn(any(), any())).thenReturn(3);
+
+        BulkStatusUpdateRequest request = new BulkStatusUpdateRequest();
+        request.setIds(ids);
+        request.setStatus(AppointmentStatus.CONFIRMED);
+        BulkStatusUpdateResultDto result = service.bulkUpdateStatus(request);
+
+        assertThat(result.updated()).isEqualTo(3);
+        assertThat(result.rows()).extracting(BulkStatusUpdateResultDto.Row::id, BulkStatusUpdateResultDto.Row::outcome)
+                .containsExactly(
+                        tuple(1L, Outcome.UPDATED),
+                        tuple(2L, Outcome.UPDATED),
+                        tuple(3L, Outcome.UPDATED),
+                        tuple(4L, Outcome.ILLEGAL_TRANSITION),
+                        tuple(5L, Outcome.NOT_FOUND));
+        verify(appointmentRepository).updateStatusByIdIn(
+                argThat(moved -> List.copyOf(moved).equals(List.of(1L, 2L, 3L))), eq(AppointmentStatus.CONFIRMED));
+        verify(statusCounters).recordTransition(null, AppointmentStatus.CONFIRMED, 1);
+        verify(statusCounters).recordTransition(AppointmentStatus.PENDING, AppointmentStatus.CONFIRMED, 2);
+        verifyNoMoreInteractions(statusCounters);
+        verify(rollupService).recordTransition(argThat(moved -> moved.size() == 3), eq(AppointmentStatus.CONFIRMED));
+    }
+
+    // Each findById sees a fresh copy of the next row state; the last one repeats
+    private void rowsRead(Appointment... states) {
+        AtomicInteger reads = new AtomicInteger();
+        when(appointmentRepository.findById(1L)).thenAnswer(invocation -> {
+            Appointment state = states[Math.min(reads.getAndIncrement(), states.length - 1)];
+            return Optional.of(appointment(state.getStatus(), state.getVersion()));
+        });
+    }
+
+    private static Appointment appointment(AppointmentStatus status, Long version) {
+        return Appointment.builder().id(1L).status(status).version(version).build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.AuthResponse;
+import com.chopadelab.core.entity.User;
+import com.chopadelab.core.exception.InvalidCredentialsException;
+import com.chopadelab.core.security.JwtService;
+import com.chopadelab.core.security.TokenRevocationStore;
+import com.chopadelab.core.security.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AuthServiceTests {
+
+    private static final String REFRESH_TOKEN = "refresh-token";
+
+    private JwtService jwtService;
+    private TokenRevocationStore revocationStore;
+    private AuthService authService;
+    private VerifiedToken presented;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = mock(JwtService.class);
+        UserCache userCache = mock(UserCache.class);
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+        revocationStore = new TokenRevocationStore(300_000, 2_592_000_000L);
+        authService = new AuthService(null, null, null, null, jwtService, userCache, userDetailsService,
+                revocationStore);
+        ReflectionTestUtils.setField(authService, "reuseGraceMillis", 10_000L);
+
+        long now = System.currentTimeMillis();
+        presented = new VerifiedToken("alice", 7L, List.of("ROLE_USER"), new Date(now + 60_000), "jti-1",
+                VerifiedToken.REFRESH, "family-1", new Date(now + 3_600_000));
+        when(jwtService.verify(REFRESH_TOKEN)).thenReturn(presented);
+        User alice = User.builder().id(7L).username("alice").enabled(true).roles(new HashSet<>()).build();
+        when(userCache.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(jwtService.rotateTokens(any(), eq(7L), eq("family-1"), any()))
+                .thenReturn(new JwtService.TokenPair("access-2", "refresh-2"), new JwtService.TokenPair("access-3", "refresh-3"));
+    }
+
+    @Test
+    void tabsRefreshingWithTheSameTokenShareOnePair() throws Exception {
+        ExecutorService tabs = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            Callable<AuthResponse> refresh = () -> {
+                start.await();
+                return authService.refresh(REFRESH_TOKEN);
+            };
+            List<Future<AuthResponse>> results = List.of(tabs.submit(refresh), tabs.submit(refresh),
+                    tabs.submit(refresh), tabs.submit(refresh));
+            start.countDown();
+
+            for (Future<AuthResponse> result : results) {
+                assertThat(result.get().getRefreshToken()).isEqualTo("refresh-2");
+            }
+        } finally {
+            tabs.shutdownNow();
+        }
+        verify(jwtService, times(1)).rotateTokens(any(), anyLong(), any(), any());
+        assertThat(revocationStore.isRevoked("family-1", presented.familyExpiration().getTime())).isFalse();
+    }
+
+    @Test
+    void reuseAfterTheGraceWindowSignsTheSessionOut() throws Exception {
+        ReflectionTestUtils.setField(authService, "reuseGraceMillis", 0L);
+        authService.refresh(REFRESH_TOKEN);
+        Thread.sleep(5);
+
+        assertThatThrownBy(() -> authService.refresh(REFRESH_TOKEN))
+                .isInstanceOf(InvalidCredentialsException.class)
+                .hasMessageContaining("already used");
+        assertThat(revocationStore.isRevoked("family-1", presented.familyExpiration().getTime())).isTrue();
+    }
+
+    @Test
+    void expiredEntriesAreSweptSoReuseIsDetectedAgain() throws Exception {
+        authService.refresh(REFRESH_TOKEN);
+        ReflectionTestUtils.setField(authService, "reuseGraceMillis", 0L);
+        Thread.sleep(5);
+        authService.dropExpiredRefreshes();
+
+        assertThatThrownBy(() -> authService.refresh(REFRESH_TOKEN))
+                .isInstanceOf(InvalidCredentialsException.class);
+    }
+}
@@ -0,0 +1,163 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.exception.IdempotencyConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTests {
+
+    private static final long TTL_MS = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final AtomicInteger runs = new AtomicInteger();
+    // Every request gets its own thread, however small the common pool is
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void replayReturnsTheStoredResultWithoutRunningAgain() {
+        IdempotencyStore store = store(10, 5_000);
+
+        assertThat(store.execute("user:1", "k", "body", counting("booked"))).isEqualTo(
+                new IdempotencyStore.Outcome<>("booked", false));
+        assertThat(store.execute("user:1", "k", "body", counting("again"))).isEqualTo(
+                new IdempotencyStore.Outcome<>("booked", true));
+        // Keys are scoped per user
+        assertThat(store.execute("user:2", "k", "body", counting("other")).replayed()).isFalse();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void reusingAKeyForADifferentBodyIsAConflict() {
+        IdempotencyStore store = store(10, 5_000);
+        store.execute("user:1", "k", "body", counting("booked"));
+
+        assertThatThrownBy(() -> store.execute("user:1", "k", "other body", counting("again")))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining("different request");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheRequestInFlight() throws Exception {
+        IdempotencyStore store = store(10, 5_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome<String>> first = running(store, "k", release);
+
+        CompletableFuture<IdempotencyStore.Outcome<String>> duplicate = CompletableFuture.supplyAsync(
+                () -> store.execute("user:1", "k", "body", counting("duplicate")), executor);
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(new IdempotencyStore.Outcome<>("slow", false));
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(new IdempotencyStore.Outcome<>("slow", true));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void duplicateThatOutwaitsTheRequestInFlightIsAConflict() throws Exception {
+        IdempotencyStore store = store(10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome<String>> first = running(store, "k", release);
+
+        assertThatThrownBy(() -> store.execute("user:1", "k", "body", counting("duplicate")))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining("still in progress");
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failureIsNotStoredSoARetryRunsAgain() {
+        IdempotencyStore store = store(10, 5_000);
+
+        assertThatThrownBy(() -> store.execute("user:1", "k", "body", () -> {
+            runs.incrementAndGet();
+            throw new IllegalArgumentException("slot full");
+        })).hasMessage("slot full");
+
+        assertThat(store.execute("user:1", "k", "body", counting("booked")))
+                .isEqualTo(new IdempotencyStore.Outcome<>("booked", false));
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void expiredResultIsForgotten() {
+        IdempotencyStore store = store(10, 5_000);
+        store.execute("user:1", "k", "body", counting("booked"));
+
+        clock.addAndGet(TTL_MS);
+        assertThat(store.execute("user:1", "k", "other body", counting("rebooked")))
+                .isEqualTo(new IdempotencyStore.Outcome<>("rebooked", false));
+    }
+
+    @Test
+    void sweepOfAFullStoreEvictsOnlyFinishedEntries() throws Exception {
+        IdempotencyStore store = store(1, 5_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome<String>> inFlight = running(store, "a", release);
+        store.execute("user:1", "b", "body", counting("b"));
+        // Over max-size: sweeps before running, and may only drop "b"
+        store.execute("user:1", "c", "body", counting("c"));
+
+        CompletableFuture<IdempotencyStore.Outcome<String>> duplicate = CompletableFuture.supplyAsync(
+                () -> store.execute("user:1", "a", "body", counting("a again")), executor);
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(new IdempotencyStore.Outcome<>("slow", true));
+
+        assertThat(store.execute("user:1", "b", "body", counting("b again")).replayed()).isFalse();
+        assertThat(runs).hasValue(4);
+    }
+
+    private IdempotencyStore store(int maxSize, long waitMillis) {
+        return new IdempotencyStore(maxSize, TTL_MS, waitMillis, clock::get);
+    }
+
+    private Supplier<String> counting(String value) {
+        return () -> {
+            runs.incrementAndGet();
+            return value;
+        };
+    }
+
+    // A request for key that is in flight until release is counted down
+    private CompletableFuture<IdempotencyStore.Outcome<String>> running(IdempotencyStore store, String key,
+            CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome<String>> request = CompletableFuture.supplyAsync(
+                () -> store.execute("user:1", key, "body", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "slow";
+                }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return request;
+    }
+}
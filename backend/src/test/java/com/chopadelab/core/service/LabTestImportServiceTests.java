@@ -0,0 +1,193 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.dto.LabTestImportResultDto;
+import com.chopadelab.core.dto.LabTestImportResultDto.Action;
+import com.chopadelab.core.dto.LabTestImportResultDto.Change;
+import com.chopadelab.core.dto.LabTestImportResultDto.FieldChange;
+import com.chopadelab.core.dto.LabTestImportResultDto.RowError;
+import com.chopadelab.core.repository.LabTestRepository;
+import com.chopadelab.core.service.LabTestImportService.CsvRecordReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LabTestImportServiceTests {
+
+    private static final String CSV = """
+            testName,price,category
+            CBC,250,Haematology
+            Lipid Profile,"₹1,200",Biochemistry
+            Vitamin D,1500,Vitamins
+            ,100,Misc
+            TSH,abc,Hormones
+            Vitamin D,1600,Vitamins
+            """;
+
+    private LabTestRepository labTestRepository;
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private LabTestImportService service;
+    private final List<Object[]> upserted = new ArrayList<>();
+
+    private record Row(String testName, BigDecimal price, String category, String description, Boolean active)
+            implements LabTestRepository.CatalogRow {
+
+        public String getTestName() {
+            return testName;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Boolean getActive() {
+            return active;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        labTestRepository = mock(LabTestRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(labTestRepository.findCatalogRows()).thenReturn(List.of(
+                new Row("CBC", new BigDecimal("250.00"), "Haematology", "Complete blood count", true),
+                new Row("Lipid Profile", new BigDecimal("900.00"), "Biochemistry", null, true)));
+        // The service reuses its batch list, so copy what each flush sends
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            upserted.addAll(batch);
+            return new int[batch.size()];
+        });
+        service = new LabTestImportService(labTestRepository, jdbcTemplate, eventPublisher);
+    }
+
+    @Test
+    void readerKeepsCommasAndLineBreaksInsideQuotes() {
+        CsvRecordReader reader = reader("name,price\r\n\"CBC, full\",\"1,200\"\r\n\"two\nlines\",3\n4,5");
+
+        assertThat(reader.next()).containsExactly("name", "price");
+        assertThat(reader.recordLine()).isEqualTo(1);
+        assertThat(reader.next()).containsExactly("CBC, full", "1,200");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("two\nlines", "3");
+        assertThat(reader.recordLine()).isEqualTo(3);
+        assertThat(reader.next()).containsExactly("4", "5");
+        assertThat(reader.recordLine()).isEqualTo(5);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void readerUnescapesDoubledQuotesAndHandlesBomAndBareCarriageReturns() {
+        CsvRecordReader reader = reader("\uFEFFtestName,price\r\"say \"\"hi\"\"\",,\r");
+
+        assertThat(reader.next()).containsExactly("testName", "price");
+        assertThat(reader.next()).containsExactly("say \"hi\"", "", "");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void readerRejectsUnterminatedQuote() {
+        CsvRecordReader reader = reader("a,b\nc,\"open\nstill open");
+
+        reader.next();
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 2");
+    }
+
+    @Test
+    void dryRunReportsEveryRowWithoutWriting() {
+        LabTestImportResultDto result = service.importCsv(csv(CSV), true);
+
+        assertCounts(result);
+        assertThat(result.dryRun()).isTrue();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void importUpsertsOnlyNewAndChangedRowsAndReportsTheRest() {
+        LabTestImportResultDto result = service.importCsv(csv(CSV), false);
+
+        assertCounts(result);
+        assertThat(result.dryRun()).isFalse();
+        assertThat(upserted).extracting(row -> row[0]).containsExactly("Lipid Profile", "Vitamin D");
+        assertThat(upserted.get(0)).containsExactly("Lipid Profile", new BigDecimal("1200.00"), "Biochemistry", null, true);
+        verify(eventPublisher).publishEvent(any(LabTestCatalogChangedEvent.class));
+    }
+
+    @Test
+    void reimportingTheCatalogChangesNothing() {
+        LabTestImportResultDto result = service.importCsv(csv("""
+                name,price,category
+                CBC,250.00,Haematology
+                Lipid Profile,900,Biochemistry
+                """), false);
+
+        assertThat(result.unchanged()).isEqualTo(2);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void headerWithoutPriceIsRejected() {
+        assertThatThrownBy(() -> service.importCsv(csv("testName,category\nCBC,Haematology\n"), false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("price");
+    }
+
+    private static void assertCounts(LabTestImportResultDto result) {
+        assertThat(result.rows()).isEqualTo(6);
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.unchanged()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.truncated()).isFalse();
+
+        assertThat(result.changes()).extracting(Change::line, Change::testName, Change::action)
+                .containsExactly(
+                        tuple(3L, "Lipid Profile", Action.UPDATE),
+                        tuple(4L, "Vitamin D", Action.CREATE));
+        assertThat(result.changes().get(0).fields())
+                .containsExactly(new FieldChange("price", "900.00", "1200.00"));
+
+        assertThat(result.errors()).extracting(RowError::line).containsExactly(5L, 6L, 7L);
+        assertThat(result.errors().get(0).message()).isEqualTo("testName is required");
+        assertThat(result.errors().get(1).message()).startsWith("price is not a number");
+        assertThat(result.errors().get(2).message()).isEqualTo("Duplicate testName, first seen on line 4");
+    }
+
+    private static CsvRecordReader reader(String text) {
+        return new CsvRecordReader(new StringReader(text));
+    }
+
+    private static ByteArrayInputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.LabTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LabTestSearchIndexTests {
+
+    private LabTestCatalog catalog;
+    private LabTestSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog = mock(LabTestCatalog.class);
+        when(catalog.snapshot()).thenReturn(snapshot(
+                test("Thyroid Profile", "Hormones", "T3, T4 and TSH"),
+                test("TSH", "Hormones", "Thyroid stimulating hormone"),
+                test("Free Thyroxine (FT4)", "Hormones", null),
+                test("Fasting Blood Glucose", "Diabetes", null),
+                test("HbA1c", "Diabetes", "Three month average blood sugar"),
+                test("Liver Function Test", "Biochemistry", null)));
+        index = new LabTestSearchIndex(catalog);
+    }
+
+    @Test
+    void tokenizeLowercasesAndSplitsOnAnythingButLettersAndDigits() {
+        assertThat(LabTestSearchIndex.tokenize("Vitamin B12 (Cobalamin)")).containsExactly("vitamin", "b12", "cobalamin");
+        assertThat(LabTestSearchIndex.tokenize("Ünïcode-Test")).containsExactly("ünïcode", "test");
+        assertThat(LabTestSearchIndex.tokenize("  ,; ")).isEmpty();
+        assertThat(LabTestSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void boundedDistanceCountsSwapsAsOneEditAndStopsPastTheBound() {
+        assertThat(LabTestSearchIndex.boundedDistance("glucose", "glucose", 2)).isZero();
+        assertThat(LabTestSearchIndex.boundedDistance("glucose", "glukose", 1)).isEqualTo(1);
+        assertThat(LabTestSearchIndex.boundedDistance("glucose", "glucsoe", 1)).isEqualTo(1);
+        assertThat(LabTestSearchIndex.boundedDistance("hemoglobin", "haemoglobin", 2)).isEqualTo(1);
+        assertThat(LabTestSearchIndex.boundedDistance("glucose", "fructose", 1)).isEqualTo(2);
+        assertThat(LabTestSearchIndex.boundedDistance("a", "abcd", 1)).isEqualTo(2);
+    }
+
+    @Test
+    void prefixMatchesEveryTermInItsRangeAndNamesOutrankDescriptions() {
+        assertThat(names(index.search("thyro", 10)))
+                .containsExactly("Free Thyroxine (FT4)", "Thyroid Profile", "TSH");
+        assertThat(index.search("thyro", 1)).hasSize(1);
+    }
+
+    @Test
+    void synonymsAndInitialsFindTestsByEverydayNames() {
+        assertThat(names(index.search("sugar", 10))).containsExactly("Fasting Blood Glucose", "HbA1c");
+        assertThat(names(index.search("lft", 10))).containsExactly("Liver Function Test");
+        // Exact name hit beats the synonym hit
+        assertThat(names(index.search("thyroid", 10))).startsWith("Thyroid Profile", "TSH");
+    }
+
+    @Test
+    void misspellingsWithinTheEditBoundStillMatch() {
+        assertThat(names(index.search("glucoze", 10))).containsExactly("Fasting Blood Glucose");
+        // Two edits on a seven-letter word is past the bound
+        assertThat(index.search("gluxoze", 10)).isEmpty();
+        // Short words must match exactly or by prefix
+        assertThat(index.search("tsg", 10)).isEmpty();
+    }
+
+    @Test
+    void wordsAddUpAcrossTheQuery() {
+        assertThat(names(index.search("blood glucose", 10))).containsExactly("Fasting Blood Glucose", "HbA1c");
+    }
+
+    @Test
+    void blankQueryDoesNotTouchTheCatalog() {
+        assertThat(index.search("  ", 10)).isEmpty();
+        verifyNoInteractions(catalog);
+    }
+
+    @Test
+    void newSnapshotIsIndexedOnNextSearch() {
+        assertThat(index.search("vit", 10)).isEmpty();
+
+        when(catalog.snapshot()).thenReturn(snapshot(test("Vitamin D (25-OH)", "Vitamins", null)));
+        assertThat(names(index.search("vit", 10))).containsExactly("Vitamin D (25-OH)");
+    }
+
+    private static LabTestCatalog.Snapshot snapshot(LabTest... tests) {
+        return new LabTestCatalog.Snapshot(List.of(tests), new byte[0], "\"test\"");
+    }
+
+    private static LabTest test(String name, String category, String description) {
+        return LabTest.builder()
+                .testName(name)
+                .category(category)
+                .description(description)
+                .price(new BigDecimal("100"))
+                .build();
+    }
+
+    private static List<String> names(List<LabTest> tests) {
+        return tests.stream().map(LabTest::getTestName).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.LabTest;
+import com.chopadelab.core.exception.ConcurrentUpdateException;
+import com.chopadelab.core.repository.LabTestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LabTestServiceTests {
+
+    private LabTestRepository labTestRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private LabTestService service;
+
+    @BeforeEach
+    void setUp() {
+        labTestRepository = mock(LabTestRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        service = new LabTestService(labTestRepository, mock(LabTestCatalog.class), eventPublisher,
+                transactionTemplate);
+    }
+
+    @Test
+    void matchingIfMatchReplacesTheTest() {
+        when(labTestRepository.findById(1L)).thenReturn(Optional.of(test("250", 4L)));
+        when(labTestRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LabTest saved = service.updateTest(1L, test("300", null), 4L);
+
+        assertThat(saved.getPrice()).isEqualByComparingTo("300");
+        verify(eventPublisher).publishEvent(new LabTestCatalogChangedEvent(1L));
+    }
+
+    @Test
+    void staleIfMatchIsAConflictCarryingTheCurrentTest() {
+        LabTest current = test("250", 4L);
+        when(labTestRepository.findById(1L)).thenReturn(Optional.of(current));
+
+        assertThatThrownBy(() -> service.updateTest(1L, test("300", null), 3L))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class, e -> {
+                    assertThat(e.getVersion()).isEqualTo(4L);
+                    assertThat(e.getCurrent()).isSameAs(current);
+                });
+        verify(labTestRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void lostVersionCheckIsAConflictWithTheRowReadAfresh() {
+        // A full replacement does not commute with other edits, so it is never retried
+        when(labTestRepository.findById(1L))
+                .thenReturn(Optional.of(test("250", 4L)), Optional.of(test("275", 5L)));
+        when(labTestRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(LabTest.class, 1L));
+
+        assertThatThrownBy(() -> service.updateTest(1L, test("300", null), null))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class, e -> {
+                    assertThat(e.getVersion()).isEqualTo(5L);
+                    assertThat(((LabTest) e.getCurrent()).getPrice()).isEqualByComparingTo("275");
+                });
+        verify(labTestRepository).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private static LabTest test(String price, Long version) {
+        return LabTest.builder().id(1L).testName("CBC").price(new BigDecimal(price)).version(version).build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.config.ReportStorageProperties;
+import com.chopadelab.core.entity.ReportFile;
+import com.chopadelab.core.repository.AppointmentRepository;
+import com.chopadelab.core.repository.ReportFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReportStorageServiceTests {
+
+    private static final byte[] PDF = "%PDF-1.7 report".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private ReportFileRepository reportFileRepository;
+    private AppointmentService appointmentService;
+    private ReportStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        root = tempDir.resolve("reports");
+        ReportStorageProperties properties = new ReportStorageProperties();
+        properties.setDir(root.toString());
+        properties.setSweepGraceMs(60_000);
+        reportFileRepository = mock(ReportFileRepository.class);
+        appointmentService = mock(AppointmentService.class);
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findPatientIdById(1L)).thenReturn(Optional.of(7L));
+        service = new ReportStorageService(properties, reportFileRepository, appointmentRepository,
+                appointmentService, mock(JdbcTemplate.class));
+    }
+
+    @Test
+    void reportRowIsWrittenInsideTheReportUrlTransaction() throws IOException {
+        when(appointmentService.attachReport(eq(1L), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return null;
+        });
+
+        service.store(1L, new MockMultipartFile("file", "scan.pdf", "application/pdf", PDF));
+
+        verify(appointmentService).attachReport(eq(1L), eq(ReportStorageService.downloadPath(1L)), any());
+        ArgumentCaptor<ReportFile> saved = ArgumentCaptor.forClass(ReportFile.class);
+        verify(reportFileRepository).save(saved.capture());
+        assertThat(saved.getValue().getPatientId()).isEqualTo(7L);
+        assertThat(saved.getValue().getContentType()).isEqualTo("application/pdf");
+        assertThat(root.resolve(saved.getValue().getSha256().substring(0, 2)).resolve(saved.getValue().getSha256()))
+                .hasBinaryContent(PDF);
+        verifyNoMoreInteractions(appointmentService);
+    }
+
+    @Test
+    void failedTransactionLeavesOnlyAnUnreferencedBlobForTheSweep() throws IOException {
+        when(appointmentService.attachReport(eq(1L), any(), any())).thenThrow(new IllegalStateException("rolled back"));
+
+        assertThatThrownBy(() -> service.store(1L, new MockMultipartFile("file", "scan.pdf", null, PDF)))
+                .hasMessage("rolled back");
+        verifyNoInteractions(reportFileRepository);
+
+        try (var files = Files.walk(root)) {
+            List<Path> blobs = files.filter(Files::isRegularFile).toList();
+            assertThat(blobs).hasSize(1);
+            age(blobs.get(0));
+        }
+        when(reportFileRepository.findReferencedSha256(anyCollection())).thenReturn(Set.of());
+        assertThat(service.sweepUnreferenced()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepDeletesOnlyOldUnreferencedBlobsAndStaleTempFiles() throws IOException {
+        String referenced = "a".repeat(64);
+        String orphan = "b".repeat(64);
+        String fresh = "c".repeat(64);
+        Path referencedBlob = age(blob(referenced));
+        Path orphanBlob = age(blob(orphan));
+        Path freshBlob = blob(fresh);
+        Path staleTmp = age(write(root.resolve(".tmp").resolve("upload-1.part")));
+        Path activeTmp = write(root.resolve(".tmp").resolve("upload-2.part"));
+        Path stranger = age(write(root.resolve("aa").resolve("notes.txt")));
+        when(reportFileRepository.findReferencedSha256(anyCollection())).thenReturn(Set.of(referenced));
+
+        assertThat(service.sweepUnreferenced()).isEqualTo(2);
+
+        assertThat(orphanBlob).doesNotExist();
+        assertThat(staleTmp).doesNotExist();
+        assertThat(referencedBlob).exists();
+        assertThat(freshBlob).exists();
+        assertThat(activeTmp).exists();
+        assertThat(stranger).exists();
+        verify(reportFileRepository).findReferencedSha256(
+                argThat(shas -> Set.copyOf(shas).equals(Set.of(referenced, orphan))));
+    }
+
+    @Test
+    void sweepBeforeAnyUploadIsANoOp() {
+        assertThat(service.sweepUnreferenced()).isZero();
+        verifyNoInteractions(reportFileRepository);
+    }
+
+    private Path blob(String sha) throws IOException {
+        return write(root.resolve(sha.substring(0, 2)).resolve(sha));
+    }
+
+    private static Path write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, PDF);
+    }
+
+    private static Path age(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+        return file;
+    }
+}
@@ -0,0 +1,117 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.AppointmentStatus;
+import com.chopadelab.core.repository.RollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RollupServiceTests {
+
+    private RollupRepository repository;
+    private PlatformTransactionManager transactionManager;
+    private RollupService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RollupRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        service = new RollupService(repository, transactionManager);
+    }
+
+    @Test
+    void bookingsAndFinalTransitionsOnlyAppendEvents() {
+        service.recordBooked(List.of(1L, 2L));
+        service.recordTransition(List.of(1L), AppointmentStatus.CONFIRMED);
+        service.recordTransition(List.of(1L), AppointmentStatus.CANCELLED);
+        service.recordTransition(List.of(2L), AppointmentStatus.COMPLETED);
+        service.recordTransition(List.of(), AppointmentStatus.CANCELLED);
+
+        verify(repository).recordEvents(List.of(1L, 2L), "BOOKED");
+        verify(repository).recordEvents(List.of(1L), "CANCELLED");
+        verify(repository).recordEvents(List.of(2L), "COMPLETED");
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void applyDrainsFullBatchesAndDeletesExactlyWhatItApplied() {
+        List<Long> full = LongStream.rangeClosed(1, RollupService.APPLY_BATCH).boxed().toList();
+        List<Long> rest = List.of(5_000L, 5_001L);
+        when(repository.findPendingEventIds(RollupService.APPLY_BATCH)).thenReturn(full, rest);
+
+        assertThat(service.applyPending()).isEqualTo(full.size() + rest.size());
+
+        InOrder inOrder = inOrder(repository);
+        for (List<Long> batch : List.of(full, rest)) {
+            inOrder.verify(repository).applyDailyEvents(batch);
+            inOrder.verify(repository).applyPerTestEvents(batch);
+            inOrder.verify(repository).deleteEvents(batch);
+        }
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void applyWithNothingPendingWritesNothing() {
+        when(repository.findPendingEventIds(RollupService.APPLY_BATCH)).thenReturn(List.of());
+
+        assertThat(service.applyPending()).isZero();
+        verify(repository, never()).applyDailyEvents(any());
+        verify(repository, never()).deleteEvents(any());
+    }
+
+    @Test
+    void rebuildRecomputesAndClearsEventsInOneRepeatableReadSnapshot() {
+        when(repository.rebuildDaily()).thenReturn(3);
+
+        assertThat(service.rebuild()).isEqualTo(3);
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getIsolationLevel()).isEqualTo(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).deleteAllPerTest();
+        inOrder.verify(repository).deleteAllDaily();
+        inOrder.verify(repository).rebuildDaily();
+        inOrder.verify(repository).rebuildPerTest();
+        inOrder.verify(repository).deleteAllEvents();
+    }
+
+    @Test
+    void applyWaitsForARunningRebuild() throws Exception {
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch finishRebuild = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rebuilding.countDown();
+            finishRebuild.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(repository).deleteAllPerTest();
+        when(repository.findPendingEventIds(RollupService.APPLY_BATCH)).thenReturn(List.of());
+
+        CompletableFuture<Integer> rebuild = CompletableFuture.supplyAsync(service::rebuild);
+        assertThat(rebuilding.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Integer> apply = CompletableFuture.supplyAsync(service::applyPending);
+
+        Thread.sleep(100);
+        assertThat(apply).isNotDone();
+        verify(repository, never()).findPendingEventIds(anyInt());
+
+        finishRebuild.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        assertThat(apply.get(5, TimeUnit.SECONDS)).isZero();
+    }
+}
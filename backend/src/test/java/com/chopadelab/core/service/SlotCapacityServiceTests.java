@@ -0,0 +1,83 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.config.SlotProperties;
+import com.chopadelab.core.exception.SlotUnavailableException;
+import com.chopadelab.core.repository.SlotCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotCapacityServiceTests {
+
+    private SlotCounterRepository repository;
+    private SlotCapacityService service;
+    private final LocalDateTime tomorrowTen = LocalDate.now().plusDays(1).atTime(10, 5);
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SlotCounterRepository.class);
+        when(repository.findBySlotStartAndHomeVisit(any(), anyBoolean())).thenReturn(Optional.empty());
+        service = new SlotCapacityService(repository, new SlotProperties());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void reservesWithTheConfiguredCapacity() {
+        when(repository.tryReserve(any(), anyBoolean(), anyInt(), anyInt())).thenReturn(1);
+
+        service.reserve(tomorrowTen, false, 2);
+
+        LocalDateTime slot = tomorrowTen.withMinute(0);
+        verify(repository).insertSlotIfAbsent(slot, false, 10);
+        verify(repository).tryReserve(slot, false, 2, 10);
+    }
+
+    @Test
+    void rejectsPastTimes() {
+        assertThatThrownBy(() -> service.reserve(LocalDateTime.now().minusHours(1), false))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(repository, never()).tryReserve(any(), anyBoolean(), anyInt(), anyInt());
+    }
+
+    @Test
+    void rejectsTimesOutsideOpeningHours() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        assertThatThrownBy(() -> service.reserve(tomorrow.atTime(6, 59), false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.reserve(tomorrow.atTime(20, 0), false))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(repository, never()).tryReserve(any(), anyBoolean(), anyInt(), anyInt());
+    }
+
+    @Test
+    void fullSlotInTheDatabaseIsReportedAndNotCountedInMemory() {
+        when(repository.tryReserve(any(), anyBoolean(), anyInt(), anyInt())).thenReturn(0, 1);
+
+        assertThatThrownBy(() -> service.reserve(tomorrowTen, true, 4))
+                .isInstanceOf(SlotUnavailableException.class);
+        // The failed attempt released its in-memory places, so the whole capacity is tried again
+        service.reserve(tomorrowTen, true, 4);
+
+        verify(repository, times(2)).tryReserve(tomorrowTen.withMinute(0), true, 4, 4);
+    }
+}
@@ -0,0 +1,83 @@
+package com.chopadelab.core.service;
+
+import com.chopadelab.core.entity.User;
+import com.chopadelab.core.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTests {
+
+    private UserRepository userRepository;
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        cache = new UserCache(userRepository);
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        ReflectionTestUtils.setField(cache, "ttlMillis", 60_000L);
+    }
+
+    private static User user(String username, boolean enabled) {
+        return User.builder().id(1L).username(username).password("hash").enabled(enabled).build();
+    }
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice", true)));
+
+        cache.findByUsername("alice");
+        cache.findByUsername("alice");
+
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void callersCannotMutateTheCachedUser() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice", true)));
+        cache.findByUsername("alice");
+
+        cache.findByUsername("alice").orElseThrow().setEnabled(false);
+
+        assertThat(cache.findByUsername("alice").orElseThrow().isEnabled()).isTrue();
+    }
+
+    @Test
+    void loadRacingWithInvalidateIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        when(userRepository.findByUsername("alice")).thenAnswer(inv -> {
+            if (loads.incrementAndGet() == 1) {
+                // The account is disabled and invalidated while the stale row is being read
+                cache.invalidate("alice");
+                return Optional.of(user("alice", true));
+            }
+            return Optional.of(user("alice", false));
+        });
+
+        assertThat(cache.findByUsername("alice").orElseThrow().isEnabled()).isTrue();
+        assertThat(cache.findByUsername("alice").orElseThrow().isEnabled()).isFalse();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice", true)));
+        cache.findByUsername("alice");
+
+        cache.invalidate("alice");
+        cache.findByUsername("alice");
+
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+}
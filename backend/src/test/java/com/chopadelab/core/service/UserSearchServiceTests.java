@@ -0,0 +1,25 @@
+package com.chopadelab.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSearchServiceTests {
+
+    @Test
+    void phoneLikeQueriesMatchOnTheirDigits() {
+        assertThat(UserSearchService.phoneDigitsPattern("98765")).isEqualTo("%98765%");
+        assertThat(UserSearchService.phoneDigitsPattern("+91 98-765")).isEqualTo("%9198765%");
+        assertThat(UserSearchService.phoneDigitsPattern("(020) 123.4")).isEqualTo("%0201234%");
+    }
+
+    @Test
+    void namesAndShortFragmentsDoNotSearchPhones() {
+        assertThat(UserSearchService.phoneDigitsPattern("user42")).isNull();
+        assertThat(UserSearchService.phoneDigitsPattern("ravi 2024")).isNull();
+        assertThat(UserSearchService.phoneDigitsPattern("12")).isNull();
+        assertThat(UserSearchService.phoneDigitsPattern("1-2")).isNull();
+        assertThat(UserSearchService.phoneDigitsPattern("---")).isNull();
+        assertThat(UserSearchService.phoneDigitsPattern("")).isNull();
+    }
+}
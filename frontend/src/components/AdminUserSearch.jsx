@@ -1,42 +1,49 @@
 // src/components/AdminUserSearch.jsx
 
 import React, { useState } from 'react';
-import { getUserByUsername } from '../services/adminApi';
+import { searchUsers } from '../services/adminApi';
 import '../pages/AdminDashboardPage.css';
 
 const AdminUserSearch = () => {
-  const [searchUsername, setSearchUsername] = useState('');
-  const [foundUser, setFoundUser] = useState(null);
+  const [query, setQuery] = useState('');
+  const [results, setResults] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loadingSearch, setLoadingSearch] = useState(false);
   const [searchError, setSearchError] = useState('');
 
-  const handleSearch = async (e) => {
-    if (e) e.preventDefault();
-    if (!searchUsername) return;
-
+  // cursor = null starts a new search; otherwise appends the next page
+  const runSearch = async (cursor = null) => {
     setLoadingSearch(true);
     setSearchError('');
-    setFoundUser(null);
     try {
-      const response = await getUserByUsername(searchUsername);
-      setFoundUser(response.data);
+      const response = await searchUsers(query.trim(), cursor);
+      const { items, nextCursor: next } = response.data;
+      setResults(prev => (cursor ? [...prev, ...items] : items));
+      setNextCursor(next);
+      if (!cursor && items.length === 0) setSearchError('No matching patients');
     } catch (err) {
       console.error("User search failed:", err);
-      setSearchError(err.response?.data?.message || 'User not found');
+      setSearchError(err.response?.data?.message || 'Search failed');
     } finally {
       setLoadingSearch(false);
     }
   };
 
+  const handleSearch = (e) => {
+    if (e) e.preventDefault();
+    if (!query.trim()) return;
+    runSearch();
+  };
+
   return (
     <div className="admin-section">
       <h2>Find Patient</h2>
       <form className="user-search-form" onSubmit={handleSearch}>
         <input
           type="text"
-          placeholder="Search by exact username..."
-          value={searchUsername}
-          onChange={(e) => setSearchUsername(e.target.value)}
+          placeholder="Search by name, username or mobile..."
+          value={query}
+          onChange={(e) => setQuery(e.target.value)}
         />
         <button type="submit" className="btn-primary" disabled={loadingSearch}>
           {loadingSearch ? '...' : 'Search'}
@@ -44,40 +51,30 @@ const AdminUserSearch = () => {
       </form>
       {searchError && <p className="form-error">{searchError}</p>}
 
-      {foundUser && (
-        <div className="user-details-card">
+      {results.map(user => (
+        <div key={user.id} className="user-details-card">
           <div className="user-details-header">
-            <h3>{foundUser.username} (ID: {foundUser.id})</h3>
-            <span className={`status ${foundUser.enabled ? 'status-active' : 'status-inactive'}`}>
-              {foundUser.enabled ? 'Active' : 'Inactive'}
+            <h3>{user.fullName || user.username} (ID: {user.id})</h3>
+            <span className={`status ${user.enabled ? 'status-active' : 'status-inactive'}`}>
+              {user.enabled ? 'Active' : 'Inactive'}
             </span>
           </div>
 
           <div className="patient-info-grid" style={{ display: 'grid', gridTemplateColumns: '1fr 1fr', gap: '1rem', marginTop: '1rem' }}>
             <div>
-              <strong>Full Name:</strong> {foundUser.fullName || 'N/A'}
-            </div>
-            <div>
-              <strong>Mobile:</strong> {foundUser.phoneNumber || 'N/A'}
+              <strong>Username:</strong> {user.username}
             </div>
             <div>
-              <strong>Age:</strong> {foundUser.age || 'N/A'}
-            </div>
-            <div>
-              <strong>Gender:</strong> {foundUser.gender || 'N/A'}
-            </div>
-            <div style={{ gridColumn: '1 / -1' }}>
-              <strong>Address:</strong> {foundUser.address || 'N/A'}
+              <strong>Mobile:</strong> {user.phoneNumber || 'N/A'}
             </div>
           </div>
-
-          <div style={{ marginTop: '1.5rem', padding: '1rem', background: '#f8f9fa', borderRadius: '8px' }}>
-            <h4>Appointment History</h4>
-            <p style={{ color: '#666', fontStyle: 'italic' }}>
-              (To view appointments, please use the "All Appointments" tab and filter by this user)
-            </p>
-          </div>
         </div>
+      ))}
+
+      {nextCursor && (
+        <button type="button" className="btn-primary" disabled={loadingSearch} onClick={() => runSearch(nextCursor)}>
+          {loadingSearch ? '...' : 'Load more'}
+        </button>
       )}
     </div>
   );
@@ -2,7 +2,7 @@ import React from 'react';
 import { X, Calendar, Clock, MapPin, Phone, CheckCircle, XCircle, FileText, User, Activity } from 'lucide-react';
 import { motion, AnimatePresence } from 'framer-motion';
 
-const AppointmentDetailsModal = ({ appointment, isOpen, onClose, onUpdateStatus }) => {
+const AppointmentDetailsModal = ({ appointment, isOpen, onClose, onUpdateStatus, onUploadReport, onViewReport }) => {
     if (!isOpen || !appointment) return null;
 
     // --- Data Mapping (Copied from Card Logic) ---
@@ -145,6 +145,31 @@ const AppointmentDetailsModal = ({ appointment, isOpen, onClose, onUpdateStatus
                             </a>
                         )}
 
+                        {onUploadReport && appointment.status !== 'CANCELLED' && (
+                            <label className="flex-1 flex items-center justify-center gap-2 px-4 py-3 bg-white border border-gray-200 text-gray-700 font-semibold rounded-xl hover:bg-gray-50 hover:border-gray-300 transition-all cursor-pointer">
+                                <FileText size={18} /> {appointment.reportUrl ? 'Replace Report' : 'Upload Report'}
+                                <input
+                                    type="file"
+                                    accept="application/pdf,image/jpeg,image/png"
+                                    className="hidden"
+                                    onChange={(e) => {
+                                        const file = e.target.files[0];
+                                        e.target.value = '';
+                                        if (file) onUploadReport(appointment.id, file);
+                                    }}
+                                />
+                            </label>
+                        )}
+
+                        {onViewReport && appointment.reportUrl && (
+                            <button
+                                onClick={() => onViewReport(appointment.reportUrl)}
+                                className="flex-1 flex items-center justify-center gap-2 px-4 py-3 bg-white border border-gray-200 text-gray-700 font-semibold rounded-xl hover:bg-gray-50 hover:border-gray-300 transition-all"
+                            >
+                                <FileText size={18} /> View Report
+                            </button>
+                        )}
+
                         {appointment.status !== 'COMPLETED' && appointment.status !== 'CANCELLED' && (
                             <button
                                 onClick={() => { onUpdateStatus(appointment.id, 'COMPLETED'); onClose(); }}
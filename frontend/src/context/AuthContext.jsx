@@ -21,6 +21,7 @@ const AuthProvider = ({ children }) => {
     } catch (err) {
       console.error('Failed to fetch user', err);
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       setToken(null);
       setUser(null);
       delete api.defaults.headers.common['Authorization'];
@@ -45,8 +46,9 @@ const AuthProvider = ({ children }) => {
     setAuthLoading(true);
     try {
       const response = await authApi.login({ username, password });
-      const { token } = response.data;
+      const { token, refreshToken } = response.data;
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       api.defaults.headers.common['Authorization'] = `Bearer ${token}`;
       setToken(token);
       const user = await fetchUser();
@@ -60,8 +62,9 @@ const AuthProvider = ({ children }) => {
     setAuthLoading(true);
     try {
       const response = await authApi.register({ username, password });
-      const { token } = response.data;
+      const { token, refreshToken } = response.data;
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       api.defaults.headers.common['Authorization'] = `Bearer ${token}`;
       setToken(token);
       const user = await fetchUser();
@@ -72,9 +75,14 @@ const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) {
+      authApi.logout(refreshToken).catch(() => {}); // Best effort; local sign-out proceeds regardless
+    }
     setUser(null);
     setToken(null);
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     delete api.defaults.headers.common['Authorization'];
     window.location.href = '/';
   };
@@ -0,0 +1,55 @@
+import { useEffect } from 'react';
+import { useQueryClient } from '@tanstack/react-query';
+import { labApi } from '../services/api';
+
+const EVENT_TYPES = ['BOOKED', 'STATUS_CHANGED', 'REPORT_UPLOADED', 'resync'];
+const REOPEN_DELAY_MS = 3000;
+
+// Refreshes admin appointment queries when the server pushes a change.
+// The stream is opened with a single-use ticket, so EventSource's own reconnect is rejected;
+// when the stream closes, fetch a new ticket and reopen it from the last event id seen.
+export const useAppointmentEvents = () => {
+  const queryClient = useQueryClient();
+
+  useEffect(() => {
+    let source = null;
+    let pending = null;
+    let reopen = null;
+    let lastEventId = null;
+    let closed = false;
+
+    // Coalesce bursts (bulk status updates) into one refetch
+    const refresh = (event) => {
+      if (event.lastEventId) lastEventId = event.lastEventId;
+      if (pending) return;
+      pending = setTimeout(() => {
+        pending = null;
+        queryClient.invalidateQueries({ queryKey: ['adminAppointments'] });
+      }, 500);
+    };
+
+    const retry = () => {
+      if (!closed) reopen = setTimeout(open, REOPEN_DELAY_MS);
+    };
+
+    const open = () => {
+      labApi.getAppointmentEventsTicket().then(({ data }) => {
+        if (closed) return;
+        source = new EventSource(labApi.appointmentEventsUrl(data.ticket, lastEventId));
+        EVENT_TYPES.forEach(type => source.addEventListener(type, refresh));
+        source.onerror = () => {
+          source.close();
+          retry();
+        };
+      }, retry);
+    };
+
+    open();
+    return () => {
+      closed = true;
+      clearTimeout(pending);
+      clearTimeout(reopen);
+      if (source) source.close();
+    };
+  }, [queryClient]);
+};
@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from 'react';
-import { useQuery, useMutation, useQueryClient } from '@tanstack/react-query';
+import { useInfiniteQuery, useMutation, useQueryClient } from '@tanstack/react-query';
 import { labApi } from '../services/api';
+import { useAppointmentEvents } from '../hooks/useAppointmentEvents';
 import StickyHeader from '../components/StickyHeader';
 import AppointmentCard from '../components/AppointmentCard';
 import AppointmentDetailsModal from '../components/AppointmentDetailsModal';
@@ -11,38 +12,68 @@ const AdminAppointmentsPage = () => {
     const [searchTerm, setSearchTerm] = useState('');
     const [statusFilter, setStatusFilter] = useState('ALL');
     const [selectedAppointment, setSelectedAppointment] = useState(null);
+    useAppointmentEvents();
 
     // 1. Fetch Appointments using useQuery
     const {
-        data: appointments = [],
+        data,
         isLoading,
-        isError
-    } = useQuery({
-        queryKey: ['adminAppointments'],
-        queryFn: async () => {
-            const res = await labApi.getAllAppointments();
+        isError,
+        fetchNextPage,
+        hasNextPage,
+        isFetchingNextPage
+    } = useInfiniteQuery({
+        queryKey: ['adminAppointments', 'list'],
+        queryFn: async ({ pageParam }) => {
+            const res = await labApi.getAppointments({ cursor: pageParam, limit: 50 });
             return res.data;
-        }
+        },
+        initialPageParam: null,
+        getNextPageParam: (lastPage) => lastPage.nextCursor ?? undefined
     });
+    const appointments = data ? data.pages.flatMap(page => page.items) : [];
 
     // 2. Update Status using useMutation
     const updateStatusMutation = useMutation({
-        mutationFn: async ({ id, status, reportUrl }) => {
-            return await labApi.updateAppointmentStatus(id, status, reportUrl);
+        mutationFn: async ({ id, status, reportUrl, version }) => {
+            return await labApi.updateAppointmentStatus(id, status, reportUrl, version);
         },
         onSuccess: () => {
             queryClient.invalidateQueries(['adminAppointments']);
         },
         onError: (error) => {
             console.error("Update failed", error);
+            if (error.response?.status === 409) {
+                // Someone else changed it first: show the current state instead of overwriting
+                queryClient.invalidateQueries(['adminAppointments']);
+                alert(`This appointment was changed by someone else (now ${error.response.data?.current?.status}). The list has been refreshed.`);
+                return;
+            }
             alert("Failed to update status. Please try again.");
         }
     });
 
+    // 3. Upload a report file; the server points reportUrl at its download endpoint
+    const uploadReportMutation = useMutation({
+        mutationFn: async ({ id, file }) => {
+            const res = await labApi.uploadReport(id, file);
+            return res.data;
+        },
+        onSuccess: (updated) => {
+            setSelectedAppointment(current => (current && current.id === updated.id ? updated : current));
+            queryClient.invalidateQueries(['adminAppointments']);
+        },
+        onError: (error) => {
+            console.error("Report upload failed", error);
+            alert(error.response?.data?.message || "Failed to upload report. Please try again.");
+        }
+    });
+
     const handleStatusUpdate = (id, status) => {
         if (!status) return;
         if (!window.confirm(`Are you sure you want to mark this as ${status}?`)) return;
-        updateStatusMutation.mutate({ id, status, reportUrl: null });
+        const version = appointments.find(apt => apt.id === id)?.version;
+        updateStatusMutation.mutate({ id, status, reportUrl: null, version });
     };
 
     // Filter Logic
@@ -106,6 +137,18 @@ const AdminAppointmentsPage = () => {
                         )}
                     </div>
                 )}
+
+                {hasNextPage && (
+                    <div className="text-center">
+                        <button
+                            onClick={() => fetchNextPage()}
+                            disabled={isFetchingNextPage}
+                            className="px-5 py-2 rounded-full bg-white border border-gray-200 text-sm font-semibold text-slate-600 shadow-sm hover:bg-gray-50"
+                        >
+                            {isFetchingNextPage ? 'Loading...' : 'Load more'}
+                        </button>
+                    </div>
+                )}
             </div>
 
             {/* 4. Details Modal */}
@@ -114,6 +157,8 @@ const AdminAppointmentsPage = () => {
                 appointment={selectedAppointment}
                 onClose={() => setSelectedAppointment(null)}
                 onUpdateStatus={handleStatusUpdate}
+                onUploadReport={(id, file) => uploadReportMutation.mutate({ id, file })}
+                onViewReport={(reportUrl) => labApi.openReport(reportUrl).catch(() => alert("Could not open the report."))}
             />
 
             {/* Bottom Nav provided by MainLayout */}
@@ -1,31 +1,51 @@
 import React from 'react';
 import { useQuery } from '@tanstack/react-query';
 import { labApi } from '../services/api';
+import { useAppointmentEvents } from '../hooks/useAppointmentEvents';
 import { CheckCircle, FileText, Users, Clock, ArrowRight, Loader2 } from 'lucide-react';
 import { Link } from 'react-router-dom';
 import './AdminDashboardPage.css';
 
 const AdminDashboardPage = () => {
-    // 1. Fetch Appointments
+    useAppointmentEvents(); // Live refresh on bookings and status changes
+
+    // 1. Fetch today's and pending appointments (server-side filtered pages)
+    const today = new Date().toISOString().split('T')[0];
+    const tomorrowDate = new Date();
+    tomorrowDate.setDate(tomorrowDate.getDate() + 1);
+    const tomorrow = tomorrowDate.toISOString().split('T')[0];
+
     const {
-        data: appointments = [],
-        isLoading: isAptLoading
+        data: todaysPage,
+        isLoading: isTodayLoading
     } = useQuery({
-        queryKey: ['adminAppointments'], // Matches key in AppointmentsPage for shared cache
+        queryKey: ['adminAppointments', 'today', today], // Prefix shared with AppointmentsPage for invalidation
         queryFn: async () => {
-            const res = await labApi.getAllAppointments();
+            const res = await labApi.getAppointments({ from: `${today}T00:00:00`, to: `${tomorrow}T00:00:00`, limit: 200 });
             return res.data;
         }
     });
 
-    // 2. Fetch Users
     const {
-        data: users = [],
+        data: stats = {},
+        isLoading: isPendingLoading
+    } = useQuery({
+        queryKey: ['adminAppointments', 'stats'],
+        queryFn: async () => {
+            const res = await labApi.getAppointmentStats();
+            return res.data;
+        }
+    });
+    const isAptLoading = isTodayLoading || isPendingLoading;
+
+    // 2. Fetch user counts (per role)
+    const {
+        data: userCounts = {},
         isLoading: isUserLoading
     } = useQuery({
-        queryKey: ['adminUsers'],
+        queryKey: ['adminUsers', 'count'],
         queryFn: async () => {
-            const res = await labApi.getAllUsers();
+            const res = await labApi.getUserCounts();
             return res.data;
         }
     });
@@ -33,14 +53,13 @@ const AdminDashboardPage = () => {
     const isLoading = isAptLoading || isUserLoading;
 
     // Stats Logic
-    const pendingCount = appointments.filter(a => a.status === 'PENDING').length;
-    const today = new Date().toISOString().split('T')[0];
-    const todayCount = appointments.filter(a => a.appointmentTime && a.appointmentTime.startsWith(today)).length;
-    const totalPatients = users.filter(u => u.roles && u.roles.some(r => r.name === 'ROLE_USER')).length;
+    const todays = todaysPage ? todaysPage.items : [];
+    const pendingCount = stats.PENDING || 0;
+    const todayCount = todays.length;
+    const totalPatients = userCounts.ROLE_USER || 0;
 
     // Today's Appointments (Filtered & Sorted Ascending)
-    const todaysAppointments = appointments
-        .filter(a => a.appointmentTime && a.appointmentTime.startsWith(today))
+    const todaysAppointments = [...todays]
         .sort((a, b) => new Date(a.appointmentTime) - new Date(b.appointmentTime));
 
     // Helper for Initials
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { labApi } from '../services/api';
 import { useAuth } from '../context/AuthContext';
@@ -11,6 +11,8 @@ const BookAppointmentPage = () => {
     const [step, setStep] = useState(1);
     const [loading, setLoading] = useState(false);
     const [activeTests, setActiveTests] = useState([]);
+    // One key per booking: a retry or double-tap replays the first result instead of booking twice
+    const idempotencyKey = useRef(crypto.randomUUID());
 
     // Form State
     const [bookingType, setBookingType] = useState('SELF'); // SELF or FAMILY
@@ -103,7 +105,7 @@ const BookAppointmentPage = () => {
                 patientMobile: patientDetails.mobile,
             };
 
-            await labApi.bookAppointment(payload);
+            await labApi.bookAppointment(payload, idempotencyKey.current);
             alert('Appointment Booked Successfully!');
             navigate('/dashboard');
         } catch (error) {
@@ -101,9 +101,9 @@ const DashboardPage = () => {
                                     </p>
                                 </div>
                                 {apt.reportUrl && (
-                                    <a href={apt.reportUrl} target="_blank" rel="noopener noreferrer" className="btn-sm btn-outline">
+                                    <button type="button" onClick={() => labApi.openReport(apt.reportUrl)} className="btn-sm btn-outline">
                                         View Report
-                                    </a>
+                                    </button>
                                 )}
                             </div>
                         ))}
@@ -48,9 +48,9 @@ const MyAppointmentsPage = () => {
 
                             {apt.reportUrl && (
                                 <div className="history-actions">
-                                    <a href={apt.reportUrl} target="_blank" rel="noopener noreferrer" className="btn btn-secondary btn-sm">
+                                    <button type="button" onClick={() => labApi.openReport(apt.reportUrl)} className="btn btn-secondary btn-sm">
                                         Download Report
-                                    </a>
+                                    </button>
                                 </div>
                             )}
                         </div>
@@ -4,6 +4,8 @@ import { labApi } from '../services/api';
 const TestMenuPage = () => {
     const [tests, setTests] = useState([]);
     const [loading, setLoading] = useState(true);
+    const [query, setQuery] = useState('');
+    const [results, setResults] = useState(null); // null = no active search, show full card
 
     useEffect(() => {
         const fetchTests = async () => {
@@ -19,11 +21,42 @@ const TestMenuPage = () => {
         fetchTests();
     }, []);
 
+    // Server-side search, debounced while typing
+    useEffect(() => {
+        const q = query.trim();
+        if (!q) {
+            setResults(null);
+            return;
+        }
+        let cancelled = false;
+        const timer = setTimeout(async () => {
+            try {
+                const response = await labApi.searchTests(q);
+                if (!cancelled) setResults(response.data);
+            } catch (error) {
+                console.error("Test search failed", error);
+            }
+        }, 250);
+        return () => {
+            cancelled = true;
+            clearTimeout(timer);
+        };
+    }, [query]);
+
+    const shown = results ?? tests;
+
     if (loading) return <div style={{ padding: '2rem' }}>Loading Rate Card...</div>;
 
     return (
         <div className="page-container" style={{ padding: '2rem' }}>
             <h1>Lab Test Rate Card</h1>
+            <input
+                type="search"
+                placeholder="Search tests, e.g. thyroid, sugar, LFT..."
+                value={query}
+                onChange={(e) => setQuery(e.target.value)}
+                style={{ width: '100%', maxWidth: '400px', padding: '8px', marginTop: '1rem' }}
+            />
             <table className="rate-card-table" style={{ width: '100%', borderCollapse: 'collapse', marginTop: '1rem' }}>
                 <thead>
                     <tr style={{ backgroundColor: '#f0f0f0', textAlign: 'left' }}>
@@ -34,7 +67,12 @@ const TestMenuPage = () => {
                     </tr>
                 </thead>
                 <tbody>
-                    {tests.map(test => (
+                    {results && results.length === 0 && (
+                        <tr>
+                            <td colSpan={4} style={{ padding: '10px' }}>No tests match "{query}"</td>
+                        </tr>
+                    )}
+                    {shown.map(test => (
                         <tr key={test.id}>
                             <td style={{ padding: '10px', borderBottom: '1px solid #ddd' }}>{test.testName}</td>
                             <td style={{ padding: '10px', borderBottom: '1px solid #ddd' }}>{test.category}</td>
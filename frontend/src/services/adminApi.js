@@ -2,25 +2,17 @@
 import api from './api'; 
 
 /**
- * Searches for a user by their username.
- * (Calls GET /api/admin/users/by-username/{username})
+ * Searches users by partial username, full name or mobile number.
+ * (Calls GET /api/admin/users?q=...&cursor=...&limit=...)
  */
-export const getUserByUsername = (username) => {
-  return api.get(`/admin/users/by-username/${username}`);
+export const searchUsers = (q, cursor, limit = 25) => {
+  return api.get('/admin/users', { params: { q, cursor, limit } });
 };
 
 /**
- * Gets total count of registered users.
+ * Gets the number of users per role, e.g. { ROLE_USER: 120, ROLE_ADMIN: 2 }.
  * (Calls GET /api/admin/users/count)
  */
 export const getUserCount = () => {
   return api.get('/admin/users/count');
 };
-
-/**
- * Gets all registered users.
- * (Calls GET /api/admin/users)
- */
-export const getAllUsers = () => {
-  return api.get('/admin/users');
-};
\ No newline at end of file
@@ -22,9 +22,51 @@ api.interceptors.request.use(
   (error) => Promise.reject(error)
 );
 
+// Access tokens are short-lived; on a 401 swap the refresh token for a new pair and retry once.
+// Concurrent 401s share one refresh, since each refresh token is only accepted once.
+let refreshing = null;
+
+export const refreshAccessToken = () => {
+  if (!refreshing) {
+    const refreshToken = localStorage.getItem('refreshToken');
+    refreshing = (refreshToken
+      ? axios.post(`${BASE_URL}/auth/refresh`, { refreshToken }).then(({ data }) => {
+          localStorage.setItem('token', data.token);
+          localStorage.setItem('refreshToken', data.refreshToken);
+          api.defaults.headers.common['Authorization'] = `Bearer ${data.token}`;
+          return data.token;
+        })
+      : Promise.reject(new Error('No refresh token')))
+      .finally(() => { refreshing = null; });
+  }
+  return refreshing;
+};
+
+api.interceptors.response.use(
+  (response) => response,
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._retried
+        && !original.url?.startsWith('/auth/')) {
+      original._retried = true;
+      try {
+        const token = await refreshAccessToken();
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch {
+        localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
+      }
+    }
+    return Promise.reject(error);
+  }
+);
+
 export const authApi = {
   login: (credentials) => api.post('/auth/login', credentials),
   register: (userData) => api.post('/auth/register', userData),
+  // Ends the whole session server-side, including access tokens already handed out
+  logout: (refreshToken) => api.post('/auth/logout', { refreshToken }),
   getCurrentUser: () => api.get('/user/me'),
   updateProfile: (data) => api.put('/user/me', data),
 };
@@ -32,19 +74,74 @@ export const authApi = {
 export const labApi = {
   // Public/User
   getAllTests: () => api.get('/tests'),
-  bookAppointment: (data) => api.post('/appointments/book', data),
+  // Ranked, typo-tolerant search over active tests
+  searchTests: (q, limit = 20) => api.get('/tests/search', { params: { q, limit } }),
+  bookAppointment: (data, idempotencyKey) => api.post('/appointments/book', data,
+    idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined),
   getMyAppointments: () => api.get('/appointments/my-history'),
 
   // Admin
-  getAllAppointments: () => api.get('/admin/appointments'),
-  updateAppointmentStatus: (id, status, reportUrl) => 
-    api.put(`/admin/appointments/${id}/status`, { status, reportUrl }),
+  // Keyset-paginated: params = { cursor, limit, status, from, to, homeVisit } -> { items, nextCursor }
+  getAppointments: (params) => api.get('/admin/appointments', { params }),
+  getAppointmentStats: () => api.get('/admin/appointments/stats'),
+  // EventSource cannot send headers: trade the token for a single-use ticket and put that in the URL
+  getAppointmentEventsTicket: () => api.post('/admin/appointments/events/ticket'),
+  appointmentEventsUrl: (ticket, lastEventId) =>
+    `${BASE_URL}/admin/appointments/events?ticket=${encodeURIComponent(ticket)}`
+      + (lastEventId ? `&lastEventId=${encodeURIComponent(lastEventId)}` : ''),
+  // version (optional) becomes If-Match; a 409 response carries the current appointment
+  updateAppointmentStatus: (id, status, reportUrl, version) =>
+    api.put(`/admin/appointments/${id}/status`, { status, reportUrl },
+      version != null ? { headers: { 'If-Match': `"${version}"` } } : undefined),
   
+  // Admin: report file (PDF/JPEG/PNG) for an appointment; responds with the updated appointment
+  uploadReport: (id, file) => {
+    const form = new FormData();
+    form.append('file', file);
+    return api.post(`/admin/appointments/${id}/report`, form, {
+      headers: { 'Content-Type': 'multipart/form-data' },
+    });
+  },
+  // Report downloads need the Authorization header, so fetch them as a blob and open that.
+  // Older appointments may still carry an external link, which opens as is.
+  openReport: async (reportUrl) => {
+    if (!reportUrl.startsWith('/api/')) {
+      window.open(reportUrl, '_blank', 'noopener,noreferrer');
+      return;
+    }
+    // Open the tab while still inside the click, or popup blockers swallow it after the await
+    const win = window.open('', '_blank');
+    try {
+      const res = await api.get(reportUrl.slice('/api'.length), { responseType: 'blob' });
+      const url = URL.createObjectURL(res.data);
+      if (win) {
+        win.location.href = url;
+      } else {
+        window.location.assign(url);
+      }
+      setTimeout(() => URL.revokeObjectURL(url), 60000);
+    } catch (err) {
+      if (win) win.close();
+      throw err;
+    }
+  },
+
   // Admin Test Management
   createTest: (data) => api.post('/admin/tests', data),
   updateTest: (id, data) => api.put(`/admin/tests/${id}`, data),
   deleteTest: (id) => api.delete(`/admin/tests/${id}`),
-  getAllUsers: () => api.get('/admin/users'),
+  // CSV price list upsert on testName; dryRun = true only returns the diff
+  importTests: (file, dryRun = false) => {
+    const form = new FormData();
+    form.append('file', file);
+    return api.post('/admin/tests/import', form, {
+      params: { dryRun },
+      headers: { 'Content-Type': 'multipart/form-data' },
+    });
+  },
+  // Keyset-paginated: params = { q, cursor, limit } -> { items, nextCursor }
+  searchUsers: (params) => api.get('/admin/users', { params }),
+  getUserCounts: () => api.get('/admin/users/count'),
 };
 
 export default api;
\ No newline at end of file